@@ -0,0 +1,81 @@
+package com.myairmed.widget;
+
+import java.util.Arrays;
+
+/**
+ * AllowedValues
+ *
+ * Sorted set of the only values a ruler can stop at, in the fixed-point unit of the ruler
+ *
+ * Ideas:
+ *  - The nearest allowed value is a binary search, so thousands of irregular values cost the same as a few
+ *  - The ticks of the allowed values in a visible range are read in order from {@link #lowerBound(long)}
+ */
+final class AllowedValues {
+
+    private final long[] mValues;
+
+    /**
+     * @param values allowed values in any order, duplicates are ignored
+     * @throws IllegalArgumentException if values is empty: a ruler cannot stop nowhere
+     */
+    AllowedValues(long[] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("The allowed values are empty");
+        }
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        mValues = size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Allowed value nearest to a value within [min, max], the lower one on a tie
+     * @return the value clamped to [min, max] if no allowed value is in it
+     */
+    long nearest(long value, long min, long max) {
+        final int first = lowerBound(min);
+        final int end = lowerBound(max + 1);
+        if (first >= end) {
+            return Math.min(Math.max(value, min), max);
+        }
+        final int i = lowerBound(value);
+        if (i <= first) {
+            return mValues[first];
+        }
+        if (i >= end) {
+            return mValues[end - 1];
+        }
+        return value - mValues[i - 1] <= mValues[i] - value ? mValues[i - 1] : mValues[i];
+    }
+
+    /**
+     * Index of the first allowed value at or above a value, {@link #size()} if there is none
+     */
+    int lowerBound(long value) {
+        int low = 0;
+        int high = mValues.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mValues[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    int size() {
+        return mValues.length;
+    }
+
+    long get(int index) {
+        return mValues[index];
+    }
+}
@@ -0,0 +1,55 @@
+package com.myairmed.widget;
+
+/**
+ * FloatRingBuffer
+ *
+ * Fixed-capacity history of float values without boxing: once full, a new value overwrites the oldest one
+ */
+final class FloatRingBuffer {
+
+    private final float[] mValues;
+    private int mHead; // index of the next write
+    private int mSize;
+
+    FloatRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(String.format("The capacity of %d is invalid", capacity));
+        }
+        mValues = new float[capacity];
+    }
+
+    void append(float value) {
+        mValues[mHead] = value;
+        mHead = mHead + 1 == mValues.length ? 0 : mHead + 1;
+        if (mSize < mValues.length) {
+            mSize++;
+        }
+    }
+
+    /**
+     * @param index 0 is the oldest value, {@link #size()} - 1 the newest
+     */
+    float get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException(String.format("index=%d, size=%d", index, mSize));
+        }
+        int i = mHead - mSize + index;
+        if (i < 0) {
+            i += mValues.length;
+        }
+        return mValues[i];
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    int capacity() {
+        return mValues.length;
+    }
+
+    void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+}
@@ -0,0 +1,146 @@
+package com.myairmed.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+/**
+ * GradationTileCache
+ *
+ * Bounded LRU cache of fixed-width Bitmap tiles of a ruler's gradation strip
+ *
+ * Ideas:
+ *  - The strip is cut into tiles of {@link #getTileWidth()} pixels, tile i covers the strip pixels [i * width, (i + 1) * width)
+ *  - The number of tiles is derived from a byte budget; when it is reached, the least recently used tile
+ *    is redrawn in place, so no Bitmap is allocated once the cache is full
+ *  - Lookups scan a handful of slots and do not box the key, so blitting cached tiles does not allocate
+ */
+final class GradationTileCache {
+
+    interface TileRenderer {
+        /**
+         * Draw the content of a tile; the canvas is cleared and its origin is the left edge of the tile
+         * @param canvas    tile canvas
+         * @param tileIndex index of the tile in the strip
+         * @param tileWidth width of the tile
+         */
+        void renderTile(Canvas canvas, long tileIndex, int tileWidth);
+    }
+
+    private static final long NO_TILE = Long.MIN_VALUE;
+
+    private final int mTileWidth;
+    private final int mTileHeight;
+    private final long[] mKeys;
+    private final long[] mLastUsed;
+    private final Bitmap[] mTiles;
+    private final Canvas mCanvas = new Canvas();
+    private long mClock;
+
+    /**
+     * @param tileWidth  width of a tile, px
+     * @param tileHeight height of a tile, px
+     * @param maxBytes   memory budget of all tiles together; must hold at least one tile
+     */
+    GradationTileCache(int tileWidth, int tileHeight, int maxBytes) {
+        this.mTileWidth = tileWidth;
+        this.mTileHeight = tileHeight;
+        final int capacity = getCapacity(tileWidth, tileHeight, maxBytes);
+        if (capacity < 1) {
+            throw new IllegalArgumentException(String.format("The maxBytes of %d cannot hold a %dx%d tile",
+                    maxBytes, tileWidth, tileHeight));
+        }
+        mKeys = new long[capacity];
+        mLastUsed = new long[capacity];
+        mTiles = new Bitmap[capacity];
+        invalidate();
+    }
+
+    /**
+     * Number of ARGB_8888 tiles that fit in the budget
+     */
+    static int getCapacity(int tileWidth, int tileHeight, int maxBytes) {
+        final long tileBytes = (long) tileWidth * Math.max(1, tileHeight) * 4;
+        return (int) Math.min(Integer.MAX_VALUE, maxBytes / tileBytes);
+    }
+
+    /**
+     * Number of tiles a frame can cover: ceil(viewWidth / tileWidth), plus one as the strip is rarely aligned on a tile
+     */
+    static int getVisibleTileCount(int viewWidth, int tileWidth) {
+        return (int) (((long) viewWidth + tileWidth - 1) / tileWidth) + 1;
+    }
+
+    /**
+     * Whether the budget holds the tiles of one frame; with fewer slots the LRU would evict a tile of the same frame
+     * and render every tile again on every frame, so the strip must be drawn directly instead
+     */
+    static boolean canHoldFrame(int viewWidth, int tileWidth, int tileHeight, int maxBytes) {
+        return tileHeight > 0
+                && getCapacity(tileWidth, tileHeight, maxBytes) >= getVisibleTileCount(viewWidth, tileWidth);
+    }
+
+    int getTileWidth() {
+        return mTileWidth;
+    }
+
+    int getTileHeight() {
+        return mTileHeight;
+    }
+
+    /**
+     * Get a tile, rendering it first if it is not cached
+     */
+    Bitmap getTile(long tileIndex, TileRenderer renderer) {
+        int slot = -1;
+        int victim = 0;
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i] == tileIndex) {
+                slot = i;
+                break;
+            }
+            if (mLastUsed[i] < mLastUsed[victim]) {
+                victim = i;
+            }
+        }
+        if (slot < 0) {
+            slot = victim;
+            Bitmap tile = mTiles[slot];
+            if (tile == null) {
+                tile = Bitmap.createBitmap(mTileWidth, mTileHeight, Bitmap.Config.ARGB_8888);
+                mTiles[slot] = tile;
+            } else {
+                tile.eraseColor(Color.TRANSPARENT);
+            }
+            mCanvas.setBitmap(tile);
+            renderer.renderTile(mCanvas, tileIndex, mTileWidth);
+            mCanvas.setBitmap(null);
+            mKeys[slot] = tileIndex;
+        }
+        mLastUsed[slot] = ++mClock;
+        return mTiles[slot];
+    }
+
+    /**
+     * Drop the content of every tile; the bitmaps are kept and redrawn on demand
+     */
+    void invalidate() {
+        for (int i = 0; i < mKeys.length; i++) {
+            mKeys[i] = NO_TILE;
+            mLastUsed[i] = 0;
+        }
+    }
+
+    /**
+     * Free the bitmaps, the cache can still be used afterwards
+     */
+    void release() {
+        invalidate();
+        for (int i = 0; i < mTiles.length; i++) {
+            if (mTiles[i] != null) {
+                mTiles[i].recycle();
+                mTiles[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.myairmed.widget;
+
+/**
+ * LabelCache
+ *
+ * Bounded cache of formatted gradation labels, with their measured width
+ *
+ * Ideas:
+ *  - Direct-mapped by the ordinal of the label (0, 1, 2... for consecutive labels): a lookup is a mask and a comparison,
+ *    consecutive labels use consecutive slots, so no window of labels up to the capacity ever evicts itself,
+ *    and a new label simply replaces whatever was in its slot
+ *  - The label is kept as a char[] so it can be drawn with Canvas.drawText(char[], ...) without creating a String,
+ *    and its width is measured once when it is put
+ */
+final class LabelCache {
+
+    private final long[] mKeys;
+    private final boolean[] mFilled;
+    private final char[][] mChars;
+    private final float[] mWidths;
+    private final int mMask;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    LabelCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(String.format("The capacity of %d is invalid", capacity));
+        }
+        final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        mKeys = new long[size];
+        mFilled = new boolean[size];
+        mChars = new char[size][];
+        mWidths = new float[size];
+        mMask = size - 1;
+    }
+
+    /**
+     * @param ordinal rank of the label among the labels of the ruler
+     * @return slot of the key, or -1 if it is not cached
+     */
+    int indexOf(long key, long ordinal) {
+        final int slot = slotOf(ordinal);
+        return mFilled[slot] && mKeys[slot] == key ? slot : -1;
+    }
+
+    /**
+     * Cache a label, replacing the one that shared its slot
+     * @param ordinal rank of the label among the labels of the ruler
+     * @return slot of the key
+     */
+    int put(long key, long ordinal, String label, float width) {
+        final int slot = slotOf(ordinal);
+        char[] chars = mChars[slot];
+        if (chars == null || chars.length != label.length()) {
+            chars = new char[label.length()];
+            mChars[slot] = chars;
+        }
+        label.getChars(0, chars.length, chars, 0);
+        mKeys[slot] = key;
+        mWidths[slot] = width;
+        mFilled[slot] = true;
+        return slot;
+    }
+
+    char[] getChars(int slot) {
+        return mChars[slot];
+    }
+
+    float getWidth(int slot) {
+        return mWidths[slot];
+    }
+
+    /**
+     * Forget every label, e.g. when the formatter or the text size changes
+     */
+    void clear() {
+        for (int i = 0; i < mFilled.length; i++) {
+            mFilled[i] = false;
+        }
+    }
+
+    private int slotOf(long ordinal) {
+        // Also right for negative ordinals: -1 is the slot before 0
+        return (int) (ordinal & mMask);
+    }
+}
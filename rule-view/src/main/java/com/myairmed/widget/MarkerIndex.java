@@ -0,0 +1,91 @@
+package com.myairmed.widget;
+
+/**
+ * MarkerIndex
+ *
+ * Markers of a ruler (value and color) sorted by value in parallel primitive arrays
+ *
+ * Ideas:
+ *  - The markers in a visible range are found with one binary search for the first one,
+ *    then read in order until the end of the range, instead of testing every tick against every marker
+ *  - Markers change rarely compared to drawing, so an insertion shifts the arrays and a lookup stays a search
+ */
+final class MarkerIndex {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] mValues = new long[INITIAL_CAPACITY];
+    private int[] mColors = new int[INITIAL_CAPACITY];
+    private int mSize;
+
+    /**
+     * Add a marker, or change its color if there is one at this value
+     */
+    void put(long value, int color) {
+        int i = lowerBound(value);
+        if (i < mSize && mValues[i] == value) {
+            mColors[i] = color;
+            return;
+        }
+        if (mSize == mValues.length) {
+            final long[] values = new long[mSize * 2];
+            final int[] colors = new int[mSize * 2];
+            System.arraycopy(mValues, 0, values, 0, mSize);
+            System.arraycopy(mColors, 0, colors, 0, mSize);
+            mValues = values;
+            mColors = colors;
+        }
+        System.arraycopy(mValues, i, mValues, i + 1, mSize - i);
+        System.arraycopy(mColors, i, mColors, i + 1, mSize - i);
+        mValues[i] = value;
+        mColors[i] = color;
+        mSize++;
+    }
+
+    /**
+     * @return whether there was a marker at this value
+     */
+    boolean remove(long value) {
+        final int i = lowerBound(value);
+        if (i == mSize || mValues[i] != value) {
+            return false;
+        }
+        System.arraycopy(mValues, i + 1, mValues, i, mSize - i - 1);
+        System.arraycopy(mColors, i + 1, mColors, i, mSize - i - 1);
+        mSize--;
+        return true;
+    }
+
+    void clear() {
+        mSize = 0;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    long valueAt(int index) {
+        return mValues[index];
+    }
+
+    int colorAt(int index) {
+        return mColors[index];
+    }
+
+    /**
+     * Index of the first marker at or above a value, {@link #size()} if there is none
+     */
+    int lowerBound(long value) {
+        int low = 0;
+        int high = mSize;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mValues[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,113 @@
+package com.myairmed.widget;
+
+import android.graphics.Color;
+
+/**
+ * MercuryColorLut
+ *
+ * Mercury color by temperature, precomputed into a table of {@link #SIZE} colors over [minValue, maxValue]
+ *
+ * Ideas:
+ *  - Bands: n thresholds split the range into n + 1 bands, band k is (thresholds[k - 1], thresholds[k]],
+ *    the first band also takes every value up to thresholds[0] and the last one every value above the last threshold
+ *  - Gradient: the colors are stops at the thresholds, values between two stops are interpolated per ARGB channel,
+ *    values outside the stops take the color of the nearest stop
+ *  - Entry i covers [minValue + i * step, minValue + (i + 1) * step), a value maps to the entry at or below it,
+ *    so a value is colored with a single multiplication and an array read
+ *  - An entry containing a threshold has no single color: it is marked and its values are resolved exactly,
+ *    so a band still switches at the threshold itself instead of up to one step away
+ */
+final class MercuryColorLut {
+
+    static final int SIZE = 256;
+
+    private final int[] mColors = new int[SIZE];
+    private final boolean[] mExact = new boolean[SIZE]; // entries containing a threshold
+    private final float mMinValue;
+    private final float mScale;
+    private final float[] mThresholds;
+    private final int[] mThresholdColors;
+    private final boolean mGradient;
+
+    /**
+     * @param minValue   minimum value of the thermometer
+     * @param maxValue   maximum value of the thermometer
+     * @param thresholds ascending thresholds (bands) or stops (gradient), unit: ℃
+     * @param colors     thresholds.length + 1 colors for bands, thresholds.length colors for a gradient
+     * @param gradient   whether to interpolate between the stops instead of using bands
+     */
+    MercuryColorLut(float minValue, float maxValue, float[] thresholds, int[] colors, boolean gradient) {
+        if (minValue >= maxValue) {
+            throw new IllegalArgumentException(String.format("The range [%f, %f] is invalid", minValue, maxValue));
+        }
+        final int expectedColors = gradient ? thresholds.length : thresholds.length + 1;
+        if (colors.length != expectedColors || colors.length == 0) {
+            throw new IllegalArgumentException(String.format("%d thresholds need %d colors for %s, got %d",
+                    thresholds.length, expectedColors, gradient ? "a gradient" : "bands", colors.length));
+        }
+        for (int i = 1; i < thresholds.length; i++) {
+            if (thresholds[i] < thresholds[i - 1]) {
+                throw new IllegalArgumentException(String.format("The thresholds are not ascending at %d: %f < %f",
+                        i, thresholds[i], thresholds[i - 1]));
+            }
+        }
+        this.mMinValue = minValue;
+        this.mScale = (SIZE - 1) / (maxValue - minValue);
+        this.mThresholds = thresholds.clone();
+        this.mThresholdColors = colors.clone();
+        this.mGradient = gradient;
+        for (float threshold : thresholds) {
+            if (threshold >= minValue && threshold <= maxValue) {
+                mExact[indexOf(threshold)] = true;
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            // The middle of the entry: its start may round into the previous entry
+            mColors[i] = colorOf(minValue + (i + .5f) / mScale);
+        }
+    }
+
+    int getColor(float value) {
+        final int index = indexOf(value);
+        return mExact[index] ? colorOf(value) : mColors[index];
+    }
+
+    private int indexOf(float value) {
+        final int index = (int) ((value - mMinValue) * mScale);
+        return Math.min(Math.max(index, 0), SIZE - 1);
+    }
+
+    private int colorOf(float value) {
+        return mGradient ? gradientColor(value, mThresholds, mThresholdColors)
+                : bandColor(value, mThresholds, mThresholdColors);
+    }
+
+    private static int bandColor(float value, float[] thresholds, int[] colors) {
+        int band = 0;
+        while (band < thresholds.length && value > thresholds[band]) {
+            band++;
+        }
+        return colors[band];
+    }
+
+    private static int gradientColor(float value, float[] stops, int[] colors) {
+        if (value <= stops[0]) {
+            return colors[0];
+        }
+        for (int i = 1; i < stops.length; i++) {
+            if (value <= stops[i]) {
+                final float fraction = (value - stops[i - 1]) / (stops[i] - stops[i - 1]);
+                return blend(colors[i - 1], colors[i], fraction);
+            }
+        }
+        return colors[colors.length - 1];
+    }
+
+    private static int blend(int from, int to, float fraction) {
+        return Color.argb(
+                Math.round(Color.alpha(from) + (Color.alpha(to) - Color.alpha(from)) * fraction),
+                Math.round(Color.red(from) + (Color.red(to) - Color.red(from)) * fraction),
+                Math.round(Color.green(from) + (Color.green(to) - Color.green(from)) * fraction),
+                Math.round(Color.blue(from) + (Color.blue(to) - Color.blue(from)) * fraction));
+    }
+}
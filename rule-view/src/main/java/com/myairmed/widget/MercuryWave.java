@@ -0,0 +1,121 @@
+package com.myairmed.widget;
+
+import android.graphics.Path;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * MercuryWave
+ *
+ * Animated wave on the surface of the mercury, redrawn on every frame while it runs
+ *
+ * Ideas:
+ *  - One period of the sine is precomputed in a table, a point of the wave is a table read instead of Math.sin
+ *  - The points are {@link #SEGMENTS_PER_WAVE} per wavelength and the outline is rebuilt into the same Path,
+ *    so a frame does not allocate
+ *  - The phase follows the frame time, so the wave moves at the same speed whatever the frame rate
+ *  - The owner stops it when the view is detached or not shown; a frame that finds the view hidden stops it too
+ */
+final class MercuryWave implements Choreographer.FrameCallback {
+
+    private static final int TABLE_SIZE = 256; // power of two, so an index wraps with a mask
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+    private static final int SEGMENTS_PER_WAVE = 16;
+    private static final int TABLE_STRIDE = TABLE_SIZE / SEGMENTS_PER_WAVE;
+    private static final float[] SINE = new float[TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            SINE[i] = (float) Math.sin(2 * Math.PI * i / TABLE_SIZE);
+        }
+    }
+
+    private final View mView;
+    private final Path mPath;
+    private float mAmplitude;
+    private float mWaveLength;
+    private long mPeriodNanos;
+
+    private boolean mRunning;
+    private int mPhase; // table index of the left edge
+
+    /**
+     * @param view         view invalidated on every frame
+     * @param amplitude    height of a crest above the mean level
+     * @param waveLength   distance between two crests
+     * @param periodMillis time for the wave to move by one wavelength, unit: ms
+     */
+    MercuryWave(View view, float amplitude, float waveLength, long periodMillis) {
+        this(view, new Path(), amplitude, waveLength, periodMillis);
+    }
+
+    /**
+     * @param path path the outline is built into, see {@link #getPath(float, float, float, float)}
+     */
+    MercuryWave(View view, Path path, float amplitude, float waveLength, long periodMillis) {
+        this.mView = view;
+        this.mPath = path;
+        setShape(amplitude, waveLength, periodMillis);
+    }
+
+    void setShape(float amplitude, float waveLength, long periodMillis) {
+        if (amplitude < 0 || waveLength <= 0 || periodMillis <= 0) {
+            throw new IllegalArgumentException(String.format("The wave of amplitude %f, length %f, period %d is invalid",
+                    amplitude, waveLength, periodMillis));
+        }
+        this.mAmplitude = amplitude;
+        this.mWaveLength = waveLength;
+        this.mPeriodNanos = periodMillis * 1000000L;
+    }
+
+    void start() {
+        if (!mRunning) {
+            mRunning = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void stop() {
+        if (mRunning) {
+            mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (!mView.isShown()) {
+            mRunning = false;
+            return;
+        }
+        mPhase = (int) (frameTimeNanos % mPeriodNanos * TABLE_SIZE / mPeriodNanos);
+        mView.invalidate();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Outline of the mercury with a wavy top, closed along the bottom
+     *
+     * @param top mean level of the surface
+     * @return the reused path, valid until the next call
+     */
+    Path getPath(float left, float top, float right, float bottom) {
+        mPath.rewind();
+        mPath.moveTo(left, bottom);
+        final float dx = mWaveLength / SEGMENTS_PER_WAVE;
+        int index = mPhase;
+        float x = left;
+        while (x < right) {
+            mPath.lineTo(x, top + mAmplitude * SINE[index & TABLE_MASK]);
+            x += dx;
+            index += TABLE_STRIDE;
+        }
+        mPath.lineTo(right, top + mAmplitude * SINE[index & TABLE_MASK]);
+        mPath.lineTo(right, bottom);
+        mPath.close();
+        return mPath;
+    }
+}
@@ -15,16 +15,37 @@ import android.view.View;
 import android.view.ViewConfiguration;
 import android.widget.Scroller;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.Nullable;
 
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+
 /**
  * MoneySelectRuleView
  * Amount selection tape measure control
+ *
+ * Ideas:
+ *  - Amounts are longs in minor units (cents, {@link #MINOR_UNITS} per major unit), so balances into the billions
+ *    neither overflow nor lose cents; the int/float API converts to and from major units
+ *  - Distances are doubles: tick i is at i * unitGap and reads {@link ScaleMapping#valueAt(long)},
+ *    the ticks drawn are found from the visible distance, so the per-frame cost does not depend on the amount
+ *  - The mapping is linear (valueUnit, valuePerCount) unless one is set, a log10 or piecewise mapping
+ *    keeps wide ranges within a short scroll distance
+ *  - The Scroller works with ints, so a fling is relative to the distance where it started
+ *  - Labels are grouped by the default locale and cached with their width
+ *  - Markers (credit limit, preset amounts...) are kept sorted, the visible ones are found with a binary search
+ *  - Allowed amounts, if set, are the only amounts the ruler stops at: the nearest one is a binary search too
  */
 public class MoneySelectRuleView extends View {
 
     private static final boolean LOG_ENABLE = BuildConfig.DEBUG;
 
+    /**
+     * Minor units (cents) per major unit
+     */
+    public static final int MINOR_UNITS = 100;
+
     /**
      * Sliding threshold
      */
@@ -34,7 +55,7 @@ public class MoneySelectRuleView extends View {
      */
     private final int MIN_FLING_VELOCITY;
     private final int MAX_FLING_VELOCITY;
-    
+
     private int bgColor;
     private int gradationColor;
     private float gradationHeight;
@@ -53,33 +74,61 @@ public class MoneySelectRuleView extends View {
     private String balanceText;
     private float balanceGap;
 
-    private int maxValue;
-    private int currentValue;
-    private int balanceValue;
-    private int valueUnit;
+    // Unit: minor units
+    private long maxValue;
+    private long currentValue;
+    private long balanceValue;
+    private long valueUnit;
     private int valuePerCount;
 
-    
-    private float mCurrentDistance;
-    private int mWidthRangeValue;
-    private int mRangeDistance;
+
+    private double mCurrentDistance;
+    private long mWidthRangeCount; // Number of ticks across the width
+    private long mLastIndex; // Index of the tick of maxValue (or the last one below it)
+    private double mRangeDistance;
+    private double mFlingAnchor; // Distance where the current fling started, the Scroller positions are relative to it
 
     private int mWidth, mHeight, mHalfWidth;
     private Paint mPaint;
+
+    private static final int TICK_STYLE_SHORT = 0;
+    private static final int TICK_STYLE_LONG = 1;
+    private static final int TICK_STYLE_BALANCE = 2;
+
+    private static final int LABEL_CACHE_CAPACITY = 64;
+
+    private final TickBatcher mTickBatcher = new TickBatcher(3);
+    private final TickBatcher mMarkerBatcher = new TickBatcher(1); // One style per marker color, grown on demand
+    private final LabelCache mLabelCache = new LabelCache(LABEL_CACHE_CAPACITY);
+    private final MarkerIndex mMarkers = new MarkerIndex();
+    private AllowedValues mAllowedAmounts; // null for every tick
+    private NumberFormat mLabelFormat;
+    private int mLabelFractionDigits; // 2 if a label may have cents, then every label shows them
+    private ScaleMapping mScaleMapping;
+    private boolean mCustomScaleMapping; // Otherwise the mapping follows valueUnit and valuePerCount
     private TextPaint mTextPaint;
     private Scroller mScroller;
     private VelocityTracker mVelocityTracker;
     private OnValueChangedListener mListener;
+    private OnAmountChangedListener mAmountListener;
 
     public interface OnValueChangedListener {
         /**
          * Called when the value changes
-         * @param newValue The new value after the change
+         * @param newValue The new value after the change, unit: major units
          */
         void onValueChanged(int newValue);
 
     }
 
+    public interface OnAmountChangedListener {
+        /**
+         * Called when the value changes
+         * @param newAmount The new value after the change, unit: minor units
+         */
+        void onAmountChanged(long newAmount);
+    }
+
     public MoneySelectRuleView(Context context) {
         this(context, null);
     }
@@ -103,9 +152,19 @@ public class MoneySelectRuleView extends View {
     }
 
     private void calculateValues() {
-        mCurrentDistance = (float) currentValue / valueUnit * unitGap;
-        mRangeDistance = (int) (maxValue / valueUnit * unitGap);
-        mWidthRangeValue = (int) (mWidth / unitGap * valueUnit);
+        if (!mCustomScaleMapping) {
+            mScaleMapping = new ScaleMapping.Linear(valueUnit, valuePerCount);
+        }
+        mLastIndex = mScaleMapping.indexOf(maxValue);
+        // One format for all the labels of a mapping: "2.50" next to "5" reads as a different precision
+        final int fractionDigits = mScaleMapping.getLabelStep() % MINOR_UNITS == 0 ? 0 : 2;
+        if (fractionDigits != mLabelFractionDigits) {
+            mLabelFractionDigits = fractionDigits;
+            mLabelCache.clear();
+        }
+        mCurrentDistance = (double) mScaleMapping.indexOf(currentValue) * unitGap;
+        mRangeDistance = (double) mLastIndex * unitGap;
+        mWidthRangeCount = (long) (mWidth / unitGap);
     }
 
     private void init(Context context) {
@@ -116,6 +175,9 @@ public class MoneySelectRuleView extends View {
         mTextPaint.setTextSize(balanceTextSize);
         mTextPaint.setColor(gradationTextColor);
 
+        mLabelFormat = NumberFormat.getNumberInstance();
+        mLabelFormat.setGroupingUsed(true);
+
         mScroller = new Scroller(context);
 
         mVelocityTracker = VelocityTracker.obtain();
@@ -141,10 +203,11 @@ public class MoneySelectRuleView extends View {
 //            balanceText = context.getString(R.string.balance_text);
 //        }
         balanceGap = ta.getDimension(R.styleable.MoneySelectRuleView_msrv_balanceGap, dp2px(4));
-        maxValue = ta.getInt(R.styleable.MoneySelectRuleView_msrv_maxValue, 150);
-        currentValue = ta.getInt(R.styleable.MoneySelectRuleView_msrv_currentValue, 0);
-        balanceValue = ta.getInt(R.styleable.MoneySelectRuleView_msrv_balanceValue, 0);
-        valueUnit = ta.getInt(R.styleable.MoneySelectRuleView_msrv_valueUnit, 1);
+        // The attributes are in major units
+        maxValue = (long) ta.getInt(R.styleable.MoneySelectRuleView_msrv_maxValue, 150) * MINOR_UNITS;
+        currentValue = (long) ta.getInt(R.styleable.MoneySelectRuleView_msrv_currentValue, 0) * MINOR_UNITS;
+        balanceValue = (long) ta.getInt(R.styleable.MoneySelectRuleView_msrv_balanceValue, 0) * MINOR_UNITS;
+        valueUnit = (long) ta.getInt(R.styleable.MoneySelectRuleView_msrv_valueUnit, 1) * MINOR_UNITS;
         valuePerCount = ta.getInt(R.styleable.MoneySelectRuleView_msrv_valuePerCount, 10);
         ta.recycle();
     }
@@ -161,7 +224,7 @@ public class MoneySelectRuleView extends View {
             gradationHeight = dp2px(40);
         }
 
-        mWidthRangeValue = (int) (mWidth / unitGap * valueUnit);
+        mWidthRangeCount = (long) (mWidth / unitGap);
 
         setMeasuredDimension(mWidth, mHeight);
     }
@@ -214,8 +277,16 @@ public class MoneySelectRuleView extends View {
                     // Sliding scale
                     scrollToGradation();
                 } else {
-                    // Inertial sliding.
-                    mScroller.fling((int) mCurrentDistance, 0, -xVelocity, 0, 0, mRangeDistance, 0, 0);
+                    // Inertial sliding, relative to the current distance which may not fit in an int
+                    mFlingAnchor = mCurrentDistance;
+                    final int minX = (int) Math.max(Integer.MIN_VALUE, -mFlingAnchor);
+                    final int maxX = (int) Math.min(Integer.MAX_VALUE, mRangeDistance - mFlingAnchor);
+                    mScroller.fling(0, 0, -xVelocity, 0, minX, maxX, 0, 0);
+                    if (mAllowedAmounts != null) {
+                        // End the fling on the allowed amount nearest to where it would stop
+                        final long target = allowedAmountAt(mFlingAnchor + mScroller.getFinalX());
+                        mScroller.setFinalX((int) Math.round(distanceOf(target) - mFlingAnchor));
+                    }
                     invalidate();
                 }
                 break;
@@ -236,16 +307,18 @@ public class MoneySelectRuleView extends View {
      * Swipe to the nearest scale
      */
     private void scrollToGradation() {
-        // Nearest ticks
-        currentValue = Math.round(mCurrentDistance / unitGap) * valueUnit;
-        // Check boundary
-        currentValue = Math.min(maxValue, Math.max(0, currentValue));
-        // Calculate the new scale position
-        mCurrentDistance = currentValue / valueUnit * unitGap;
-        logD("scrollToGradation: currentValue=%d, mCurrentDistance=%f", currentValue, mCurrentDistance);
-        if (mListener != null) {
-            mListener.onValueChanged(currentValue);
+        if (mAllowedAmounts != null) {
+            currentValue = allowedAmountAt(mCurrentDistance);
+            mCurrentDistance = distanceOf(currentValue);
+        } else {
+            // Nearest ticks, check boundary
+            final long index = Math.min(mLastIndex, Math.max(0, Math.round(mCurrentDistance / unitGap)));
+            currentValue = mScaleMapping.valueAt(index);
+            // Calculate the new scale position
+            mCurrentDistance = (double) index * unitGap;
         }
+        logD("scrollToGradation: currentValue=%d, mCurrentDistance=%f", currentValue, mCurrentDistance);
+        notifyValueChanged();
         invalidate();
     }
 
@@ -253,15 +326,64 @@ public class MoneySelectRuleView extends View {
      * Check the distance and recalculate the current value
      */
     private void computeValue() {
-        logD("computeValue: mRangeDistance=%d, mCurrentDistance=%f", mRangeDistance, mCurrentDistance);
+        logD("computeValue: mRangeDistance=%f, mCurrentDistance=%f", mRangeDistance, mCurrentDistance);
         mCurrentDistance = Math.min(mRangeDistance, Math.max(0, mCurrentDistance));
-        currentValue = (int)(mCurrentDistance / unitGap) * valueUnit;
-        if (mListener != null) {
-            mListener.onValueChanged(currentValue);
+        if (mAllowedAmounts != null) {
+            currentValue = allowedAmountAt(mCurrentDistance);
+        } else {
+            currentValue = mScaleMapping.valueAt((long) (mCurrentDistance / unitGap));
         }
+        notifyValueChanged();
         postInvalidate();
     }
 
+    /**
+     * Amount at any distance, interpolated between the two ticks around it
+     */
+    private long amountAt(double distance) {
+        final double position = distance / unitGap;
+        final long index = (long) Math.floor(position);
+        final long low = mScaleMapping.valueAt(index);
+        final long high = mScaleMapping.valueAt(index + 1);
+        return low + Math.round((position - index) * (high - low));
+    }
+
+    /**
+     * Distance of any amount, interpolated between the two ticks around it
+     */
+    private double distanceOf(long amount) {
+        final long index = mScaleMapping.indexOf(amount);
+        final long low = mScaleMapping.valueAt(index);
+        final long high = mScaleMapping.valueAt(index + 1);
+        final double fraction = high > low ? (double) (amount - low) / (high - low) : 0;
+        return (index + fraction) * unitGap;
+    }
+
+    private long allowedAmountAt(double distance) {
+        return mAllowedAmounts.nearest(amountAt(Math.max(0, distance)), 0, maxValue);
+    }
+
+    /**
+     * Move to an amount given by code: the nearest allowed amount if there are some, else the tick at or below it
+     */
+    private void moveToAmount(long amount) {
+        if (mAllowedAmounts != null) {
+            currentValue = mAllowedAmounts.nearest(amount, 0, maxValue);
+        } else {
+            currentValue = mScaleMapping.valueAt(Math.min(mLastIndex, mScaleMapping.indexOf(amount)));
+        }
+        mCurrentDistance = distanceOf(currentValue);
+    }
+
+    private void notifyValueChanged() {
+        if (mListener != null) {
+            mListener.onValueChanged(toMajorUnits(currentValue));
+        }
+        if (mAmountListener != null) {
+            mAmountListener.onAmountChanged(currentValue);
+        }
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         // background
@@ -273,7 +395,7 @@ public class MoneySelectRuleView extends View {
     }
 
     /**
-     * Draw scale, amount, and remaining amount
+     * Draw scale, amount, remaining amount and markers
      */
     private void drawRule(Canvas canvas) {
         canvas.save();
@@ -283,63 +405,125 @@ public class MoneySelectRuleView extends View {
         mPaint.setStrokeWidth(gradationShortWidth);
         canvas.drawLine(0, 0, mWidth, 0, mPaint);
 
-        // Scale, value
-        final int expend = 3 * valueUnit;
+        // Scale, value: by tick index, see mScaleMapping
+        final int expend = 3;
         // Start scale
-        int start = (int) ((mCurrentDistance - mHalfWidth) / unitGap) * valueUnit;
+        long start = (long) ((mCurrentDistance - mHalfWidth) / unitGap);
         start = Math.max(0, start - expend);
-        int end = Math.min(maxValue, (start + expend) + mWidthRangeValue + expend);
-        float startOffset = mHalfWidth - (mCurrentDistance - start / valueUnit * unitGap);
-        final int perCount = valuePerCount * valueUnit;
-        // Remaining amount: round down
-        final int balance = balanceValue / valueUnit * valueUnit;
-        logD("drawRule: mCurrentDistance=%f, start=%d, end=%d, startOffset=%f, perCount=%d",
-                mCurrentDistance, start, end, startOffset, perCount);
+        long end = Math.min(mLastIndex, (start + expend) + mWidthRangeCount + expend);
+        float startOffset = (float) (mHalfWidth - (mCurrentDistance - start * (double) unitGap));
+        final long first = start;
+        final float firstOffset = startOffset;
+        logD("drawRule: mCurrentDistance=%f, start=%d, end=%d, startOffset=%f",
+                mCurrentDistance, start, end, startOffset);
+        mTickBatcher.setStyle(TICK_STYLE_SHORT, gradationShortWidth, gradationColor);
+        mTickBatcher.setStyle(TICK_STYLE_LONG, gradationLongWidth, gradationColor);
+        mTickBatcher.setStyle(TICK_STYLE_BALANCE, gradationLongWidth, indicatorColor);
         while (start <= end) {
-            if (start % perCount == 0) {
+            if (mScaleMapping.isLabeled(start)) {
                 // Scale
-                mPaint.setStrokeWidth(gradationLongWidth);
-                canvas.drawLine(startOffset, 0, startOffset, -gradationLongLen, mPaint);
+                mTickBatcher.addLine(TICK_STYLE_LONG, startOffset, 0, startOffset, -gradationLongLen);
 
                 // Numerical value
                 mTextPaint.setTextSize(gradationTextSize);
                 mTextPaint.setColor(gradationTextColor);
-                String text = Integer.toString(start);
-                float textWidth = mTextPaint.measureText(text);
-                canvas.drawText(text, startOffset - textWidth * .5f, -(gradationLongLen + gradationValueGap), mTextPaint);
-            } else {
-                mPaint.setStrokeWidth(gradationShortWidth);
-                canvas.drawLine(startOffset, 0, startOffset, -gradationShortLen, mPaint);
+                final int slot = getLabelSlot(start);
+                final char[] text = mLabelCache.getChars(slot);
+                canvas.drawText(text, 0, text.length, startOffset - mLabelCache.getWidth(slot) * .5f,
+                        -(gradationLongLen + gradationValueGap), mTextPaint);
+            } else if (mAllowedAmounts == null) {
+                mTickBatcher.addLine(TICK_STYLE_SHORT, startOffset, 0, startOffset, -gradationShortLen);
             }
 
-            // balance
-            if (start == balance) {
-                mPaint.setColor(indicatorColor);
-                canvas.drawLine(startOffset, 0, startOffset, -gradationLongLen, mPaint);
-                mPaint.setColor(gradationColor);
-
-                mTextPaint.setTextSize(balanceTextSize);
-                mTextPaint.setColor(indicatorColor);
-//                float textWidth = mTextPaint.measureText(balanceText);
-//                canvas.drawText(balanceText, startOffset - textWidth * .5f, balanceGap + balanceTextSize, mTextPaint);
-                mTextPaint.setColor(gradationColor);
+            start++;
+            startOffset += unitGap;
+        }
+
+        // Allowed amounts: short ticks at the allowed amounts instead of every tick
+        if (mAllowedAmounts != null) {
+            final double originOffset = firstOffset - first * (double) unitGap;
+            for (int i = mAllowedAmounts.lowerBound(mScaleMapping.valueAt(first)); i < mAllowedAmounts.size(); i++) {
+                final long amount = mAllowedAmounts.get(i);
+                if (mScaleMapping.indexOf(amount) > end) {
+                    break;
+                }
+                final float offset = (float) (originOffset + distanceOf(amount));
+                mTickBatcher.addLine(TICK_STYLE_SHORT, offset, 0, offset, -gradationShortLen);
             }
+        }
 
-            start += valueUnit;
-            startOffset += unitGap;
+        // Remaining amount: round down, one range check instead of a comparison per tick
+        final long balance = mScaleMapping.indexOf(balanceValue);
+        if (balance >= first && balance <= end) {
+            final float balanceOffset = firstOffset + (balance - first) * unitGap;
+            // Flushed after the other ticks, so it is drawn above them
+            mTickBatcher.addLine(TICK_STYLE_BALANCE, balanceOffset, 0, balanceOffset, -gradationLongLen);
+
+            mTextPaint.setTextSize(balanceTextSize);
+            mTextPaint.setColor(indicatorColor);
+//            float textWidth = mTextPaint.measureText(balanceText);
+//            canvas.drawText(balanceText, balanceOffset - textWidth * .5f, balanceGap + balanceTextSize, mTextPaint);
+            mTextPaint.setColor(gradationColor);
         }
+        mTickBatcher.flush(canvas, mPaint);
+
+        drawMarkers(canvas, first, end, firstOffset);
+        mPaint.setColor(gradationColor);
 
         canvas.restore();
     }
 
+    /**
+     * Draw the markers on the ticks first..end, each one at its amount between the two ticks around it
+     */
+    private void drawMarkers(Canvas canvas, long first, long end, float firstOffset) {
+        if (mMarkers.size() == 0) {
+            return;
+        }
+        final double originOffset = firstOffset - first * (double) unitGap;
+        int styleCount = 0;
+        for (int i = mMarkers.lowerBound(mScaleMapping.valueAt(first)); i < mMarkers.size(); i++) {
+            final long amount = mMarkers.valueAt(i);
+            if (mScaleMapping.indexOf(amount) > end) {
+                break;
+            }
+            final int style = mMarkerBatcher.findOrAddStyle(styleCount, gradationLongWidth, mMarkers.colorAt(i));
+            if (style == styleCount) {
+                styleCount++;
+            }
+            final float offset = (float) (originOffset + distanceOf(amount));
+            mMarkerBatcher.addLine(style, offset, 0, offset, -gradationLongLen);
+        }
+        // One drawLines call per marker color
+        mMarkerBatcher.flush(canvas, mPaint);
+    }
+
+    /**
+     * Slot of the label of a labeled tick in {@link #mLabelCache}, formatting and measuring it on a miss
+     * Note: the text size must be gradationTextSize
+     */
+    private int getLabelSlot(long index) {
+        final long amount = mScaleMapping.valueAt(index);
+        final long ordinal = mScaleMapping.labelOrdinalOf(index);
+        int slot = mLabelCache.indexOf(amount, ordinal);
+        if (slot < 0) {
+            // BigDecimal keeps the cents exact, a double would not above 2^53
+            mLabelFormat.setMinimumFractionDigits(mLabelFractionDigits);
+            mLabelFormat.setMaximumFractionDigits(mLabelFractionDigits);
+            final String text = mLabelFormat.format(BigDecimal.valueOf(amount, 2));
+            slot = mLabelCache.put(amount, ordinal, text, mTextPaint.measureText(text));
+        }
+        return slot;
+    }
+
     @Override
     public void computeScroll() {
         if (mScroller.computeScrollOffset()) {
+            mCurrentDistance = mFlingAnchor + mScroller.getCurrX();
             if (mScroller.getCurrX() == mScroller.getFinalX()) {
                 // The end has been reached: slide to the tick mark
                 scrollToGradation();
             } else {
-                mCurrentDistance = mScroller.getCurrX();
                 computeValue();
             }
         }
@@ -369,7 +553,32 @@ public class MoneySelectRuleView extends View {
         }
     }
 
+    /**
+     * Whole major units of an amount, saturated to the int range
+     */
+    private static int toMajorUnits(long amount) {
+        final long major = amount / MINOR_UNITS;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, major));
+    }
+
+    /**
+     * Amount of a major-unit value, rounded to the nearest minor unit instead of truncated
+     */
+    private static long toMinorUnits(float value) {
+        return Math.round((double) value * MINOR_UNITS);
+    }
+
+    /**
+     * @return the current value, unit: major units
+     */
     public int getValue() {
+        return toMajorUnits(currentValue);
+    }
+
+    /**
+     * @return the current value, unit: minor units
+     */
+    public long getAmount() {
         return currentValue;
     }
 
@@ -391,45 +600,145 @@ public class MoneySelectRuleView extends View {
 //        postInvalidate();
 //    }
 
+    /**
+     * @return the balance, unit: major units
+     */
     public int getBalance() {
+        return toMajorUnits(balanceValue);
+    }
+
+    /**
+     * @return the balance, unit: minor units
+     */
+    public long getBalanceAmount() {
         return balanceValue;
     }
 
+    /**
+     * @param balance unit: major units
+     */
     public void setBalance(float balance) {
-        this.balanceValue = (int) balance / valueUnit * valueUnit;
+        setBalanceAmount(toMinorUnits(balance));
+    }
+
+    /**
+     * @param balance unit: minor units, rounded down to a tick
+     */
+    public void setBalanceAmount(long balance) {
+        this.balanceValue = mScaleMapping.valueAt(mScaleMapping.indexOf(balance));
         postInvalidate();
     }
 
+    /**
+     * Values in major units, see {@link #setAmount(long, long, long, long, int)}
+     */
     public void setValue(int maxValue, float curValue, int balanceValue, int valueUnit, int valuePerCount) {
-        if ( curValue < 0 || curValue > maxValue) {
+        setAmount((long) maxValue * MINOR_UNITS, toMinorUnits(curValue), (long) balanceValue * MINOR_UNITS,
+                (long) valueUnit * MINOR_UNITS, valuePerCount);
+    }
+
+    /**
+     * @param maxAmount     maximum amount, unit: minor units
+     * @param curAmount     current amount, unit: minor units
+     * @param balanceAmount balance, unit: minor units
+     * @param amountUnit    amount between two ticks, unit: minor units
+     * @param valuePerCount number of ticks between two labels
+     * Note: amountUnit and valuePerCount are ignored while a mapping is set with {@link #setScaleMapping(ScaleMapping)}
+     * Note: like a drag, curAmount moves to the nearest allowed amount, see {@link #setAllowedAmounts(long[])}
+     */
+    public void setAmount(long maxAmount, long curAmount, long balanceAmount, long amountUnit, int valuePerCount) {
+        if (curAmount < 0 || curAmount > maxAmount || amountUnit <= 0 || valuePerCount <= 0) {
             throw new IllegalArgumentException(String.format("The given values are invalid, check firstly: " +
-                    "minValue=%f, maxValue=%f, curValue=%s", maxValue, curValue));
+                    "maxAmount=%d, curAmount=%d, amountUnit=%d, valuePerCount=%d",
+                    maxAmount, curAmount, amountUnit, valuePerCount));
         }
         if (!mScroller.isFinished()) {
             mScroller.forceFinished(true);
         }
 
-        this.maxValue = (int) maxValue;
-        this.currentValue = (int) curValue;
-        this.balanceValue=balanceValue;
-        this.valueUnit=valueUnit;
-        this.valuePerCount=valuePerCount;
-        if (mListener != null) {
-            mListener.onValueChanged(currentValue);
+        this.maxValue = maxAmount;
+        this.currentValue = curAmount;
+        this.balanceValue = balanceAmount;
+        this.valueUnit = amountUnit;
+        this.valuePerCount = valuePerCount;
+        calculateValues();
+        moveToAmount(curAmount);
+        notifyValueChanged();
+        postInvalidate();
+    }
+
+    /**
+     * Values of the ticks, e.g. {@link ScaleMapping.Log10} for a wide range
+     * The current value moves to the nearest allowed amount, or to the tick at or below it
+     *
+     * @param mapping null for the linear mapping of valueUnit and valuePerCount
+     */
+    public void setScaleMapping(@Nullable ScaleMapping mapping) {
+        if (!mScroller.isFinished()) {
+            mScroller.forceFinished(true);
         }
+        this.mCustomScaleMapping = mapping != null;
+        this.mScaleMapping = mapping;
         calculateValues();
+        moveToAmount(currentValue);
+        notifyValueChanged();
         postInvalidate();
     }
 
 
 
+    /**
+     * Mark an amount on the ruler, e.g. a credit limit or a preset top-up
+     *
+     * @param amount unit: minor units
+     * @param color  color of the marker, replaces the color of an existing marker at this amount
+     */
+    public void addMarker(long amount, @ColorInt int color) {
+        mMarkers.put(amount, color);
+        invalidate();
+    }
+
+    /**
+     * @param amount unit: minor units
+     */
+    public void removeMarker(long amount) {
+        if (mMarkers.remove(amount)) {
+            invalidate();
+        }
+    }
+
+    public void clearMarkers() {
+        mMarkers.clear();
+        invalidate();
+    }
+
+    /**
+     * Only stop at some amounts: dragging, flinging, the listeners and the amounts set by code resolve to
+     * the nearest allowed amount, and the short ticks are drawn at the allowed amounts
+     *
+     * @param amounts allowed amounts in any order, unit: minor units; amounts out of [0, maxAmount] are never reached;
+     *                null allows every tick again
+     * @throws IllegalArgumentException if amounts is empty, the allowed amounts are then left unchanged
+     */
+    public void setAllowedAmounts(@Nullable long[] amounts) {
+        mAllowedAmounts = amounts != null ? new AllowedValues(amounts) : null;
+        if (!mScroller.isFinished()) {
+            mScroller.forceFinished(true);
+        }
+        scrollToGradation();
+    }
+
     public void setOnValueChangedListener(OnValueChangedListener listener) {
         this.mListener = listener;
     }
+
+    public void setOnAmountChangedListener(OnAmountChangedListener listener) {
+        this.mAmountListener = listener;
+    }
 }
 
 //maxValue = ta.getInt(R.styleable.MoneySelectRuleView_msrv_maxValue, 150);
 //        currentValue = ta.getInt(R.styleable.MoneySelectRuleView_msrv_currentValue, 0);
 //        balanceValue = ta.getInt(R.styleable.MoneySelectRuleView_msrv_balanceValue, 0);
 //        valueUnit = ta.getInt(R.styleable.MoneySelectRuleView_msrv_valueUnit, 1);
-//        valuePerCount = ta.getInt(R.styleable.MoneySelectRuleView_msrv_valuePerCount, 10);
\ No newline at end of file
+//        valuePerCount = ta.getInt(R.styleable.MoneySelectRuleView_msrv_valuePerCount, 10);
@@ -0,0 +1,72 @@
+package com.myairmed.widget;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReplayValueSource
+ *
+ * {@link ValueSource} that publishes recorded (or generated) readings in a loop from a background thread,
+ * to try a live binding without a sensor
+ */
+public class ReplayValueSource extends ValueSource {
+
+    private final float[] mReadings;
+    private ScheduledExecutorService mExecutor;
+    /**
+     * Index of the next reading; a run of the stopped executor may still be in flight when the next one starts
+     */
+    private final AtomicInteger mNext = new AtomicInteger();
+
+    /**
+     * @param readings readings to publish in order, then again from the first one, unit: ℃
+     */
+    public ReplayValueSource(float[] readings) {
+        if (readings.length == 0) {
+            throw new IllegalArgumentException("The readings are empty");
+        }
+        this.mReadings = readings.clone();
+    }
+
+    /**
+     * Start publishing
+     * @param periodMillis time between two readings, unit: ms
+     */
+    public synchronized void start(long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException(String.format("The periodMillis of %d is invalid", periodMillis));
+        }
+        stop();
+        mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ReplayValueSource");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mExecutor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                do {
+                    index = mNext.get();
+                } while (!mNext.compareAndSet(index, (index + 1) % mReadings.length));
+                publish(mReadings[index]);
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop publishing, {@link #start(long)} resumes after the last published reading
+     */
+    public synchronized void stop() {
+        if (mExecutor != null) {
+            mExecutor.shutdownNow();
+            mExecutor = null;
+        }
+    }
+}
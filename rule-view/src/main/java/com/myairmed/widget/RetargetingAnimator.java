@@ -0,0 +1,187 @@
+package com.myairmed.widget;
+
+import android.view.Choreographer;
+
+/**
+ * RetargetingAnimator
+ *
+ * Single reusable animation of one float value, driven by Choreographer frame callbacks
+ *
+ * Ideas:
+ *  - {@link #animateTo(float, float)} while running does not start a second animation: the current one is retargeted,
+ *    starting from the current value and velocity, so a stream of new targets never piles up animators
+ *  - Tween mode: cubic Hermite curve from (value, velocity) to (target, 0) over the duration,
+ *    so the motion stays continuous when the target changes mid-flight
+ *  - Spring mode: damped spring integrated on every frame, which retargets naturally
+ *  - The per-frame state is a handful of fields, so updates do not allocate
+ */
+final class RetargetingAnimator implements Choreographer.FrameCallback {
+
+    interface Listener {
+        /**
+         * Called on every frame with the animated value
+         */
+        void onValueUpdate(float value);
+
+        /**
+         * Called once when the value has reached the target
+         */
+        void onValueSettled(float value);
+    }
+
+    private static final long NO_TIME = -1;
+    /**
+     * Longest time step of the spring integration, unit: s
+     */
+    private static final float MAX_SPRING_STEP = 1f / 240;
+    /**
+     * Longest frame interval taken into account, so a stalled frame does not make the spring jump, unit: s
+     */
+    private static final float MAX_FRAME_INTERVAL = 1f / 15;
+
+    private final Listener mListener;
+    private final float mPrecision;
+
+    private long mDurationNanos = 500 * 1000000L;
+    private float mStiffness;
+    private float mDampingRatio;
+
+    private boolean mRunning;
+    private float mValue;
+    private float mVelocity; // unit: per second
+    private float mTarget;
+
+    // Tween segment
+    private float mFromValue;
+    private float mFromVelocity;
+    private long mStartTime = NO_TIME;
+    private long mLastFrameTime = NO_TIME;
+
+    /**
+     * @param listener  receives the values
+     * @param precision distance to the target below which the animation settles
+     */
+    RetargetingAnimator(Listener listener, float precision) {
+        this.mListener = listener;
+        this.mPrecision = precision;
+    }
+
+    /**
+     * Duration of a tween (ignored in spring mode)
+     */
+    void setDuration(long durationMillis) {
+        if (durationMillis <= 0) {
+            throw new IllegalArgumentException(String.format("The duration of %d is invalid", durationMillis));
+        }
+        this.mDurationNanos = durationMillis * 1000000L;
+    }
+
+    /**
+     * Use a spring instead of a tween
+     * @param stiffness    spring stiffness, 0 switches back to the tween
+     * @param dampingRatio 1 is critically damped, below 1 overshoots
+     */
+    void setSpring(float stiffness, float dampingRatio) {
+        if (stiffness < 0 || dampingRatio <= 0) {
+            throw new IllegalArgumentException(String.format("The spring of stiffness=%f, dampingRatio=%f is invalid",
+                    stiffness, dampingRatio));
+        }
+        this.mStiffness = stiffness;
+        this.mDampingRatio = dampingRatio;
+    }
+
+    /**
+     * Animate to a target
+     * @param current value shown now, only used if no animation is running
+     * @param target  new target
+     */
+    void animateTo(float current, float target) {
+        if (!mRunning) {
+            mValue = current;
+            mVelocity = 0;
+            mLastFrameTime = NO_TIME;
+            mRunning = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+        mTarget = target;
+        // Restart the tween from the current state on the next frame
+        mStartTime = NO_TIME;
+    }
+
+    /**
+     * Stop where the value is, without calling {@link Listener#onValueSettled(float)}
+     */
+    void cancel() {
+        if (mRunning) {
+            mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        final boolean settled = mStiffness > 0 ? stepSpring(frameTimeNanos) : stepTween(frameTimeNanos);
+        mLastFrameTime = frameTimeNanos;
+        if (settled) {
+            mRunning = false;
+            mValue = mTarget;
+            mVelocity = 0;
+            mListener.onValueSettled(mValue);
+        } else {
+            mListener.onValueUpdate(mValue);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * @return true if the target is reached
+     */
+    private boolean stepTween(long frameTimeNanos) {
+        if (mStartTime == NO_TIME) {
+            // Retargeted (or started) since the last frame: the new segment starts at the previous frame
+            mStartTime = mLastFrameTime == NO_TIME ? frameTimeNanos : mLastFrameTime;
+            mFromValue = mValue;
+            mFromVelocity = mVelocity;
+        }
+        final float s = (float) (frameTimeNanos - mStartTime) / mDurationNanos;
+        if (s >= 1) {
+            return true;
+        }
+        final float durationSeconds = mDurationNanos / 1e9f;
+        final float s2 = s * s;
+        final float s3 = s2 * s;
+        // Hermite basis, end velocity 0
+        final float h00 = 2 * s3 - 3 * s2 + 1;
+        final float h10 = s3 - 2 * s2 + s;
+        final float h01 = -2 * s3 + 3 * s2;
+        mValue = h00 * mFromValue + h10 * durationSeconds * mFromVelocity + h01 * mTarget;
+        final float d00 = 6 * s2 - 6 * s;
+        final float d10 = 3 * s2 - 4 * s + 1;
+        final float d01 = -6 * s2 + 6 * s;
+        mVelocity = (d00 * mFromValue + d01 * mTarget) / durationSeconds + d10 * mFromVelocity;
+        return false;
+    }
+
+    /**
+     * @return true if the spring is at rest on the target
+     */
+    private boolean stepSpring(long frameTimeNanos) {
+        if (mLastFrameTime == NO_TIME) {
+            return false;
+        }
+        float remaining = Math.min((frameTimeNanos - mLastFrameTime) / 1e9f, MAX_FRAME_INTERVAL);
+        final float damping = 2 * mDampingRatio * (float) Math.sqrt(mStiffness);
+        while (remaining > 0) {
+            final float dt = Math.min(remaining, MAX_SPRING_STEP);
+            // Semi-implicit Euler: velocity first, then position with the new velocity
+            final float acceleration = -mStiffness * (mValue - mTarget) - damping * mVelocity;
+            mVelocity += acceleration * dt;
+            mValue += mVelocity * dt;
+            remaining -= dt;
+        }
+        return Math.abs(mValue - mTarget) < mPrecision && Math.abs(mVelocity) < mPrecision;
+    }
+}
@@ -18,6 +18,18 @@ import android.widget.Scroller;
 
 import androidx.annotation.Nullable;
 
+import java.math.BigDecimal;
+
+/**
+ * RuleView
+ * Value selection ruler
+ *
+ * Ideas:
+ *  - Values are long fixed-point numbers with decimalScale decimal places (value * 10^decimalScale),
+ *    so ranges like 0..10,000,000 at 0.01 neither overflow nor round
+ *  - Distances are doubles and the Scroller positions are relative to where the scroll started,
+ *    so long ranges stay pixel-exact
+ */
 public class RuleView extends View {
     private static final boolean LOG_ENABLE = BuildConfig.DEBUG;
 
@@ -56,25 +68,46 @@ public class RuleView extends View {
 
     private float gradationUnit;
 
+    /**
+     * Maximum number of decimal places
+     */
+    private static final int MAX_DECIMAL_SCALE = 6;
+
+    private int decimalScale;
+
+    /**
+     * 10^decimalScale: number = value * mNumberScale
+     */
+    private long mNumberScale;
+
     private int numberPerCount;
 
     private float gradationGap;
 
     private float gradationNumberGap;
 
-    private int mMinNumber;
+    private boolean gradationCacheEnabled;
+
+    private int gradationCacheMaxBytes;
+
+    private long mMinNumber;
 
-    private int mMaxNumber;
+    private long mMaxNumber;
 
-    private int mCurrentNumber;
+    private long mCurrentNumber;
 
-    private float mNumberRangeDistance;
+    private double mNumberRangeDistance;
 
-    private int mNumberUnit;
+    private long mNumberUnit;
 
-    private float mCurrentDistance;
+    private double mCurrentDistance;
 
-    private int mWidthRangeNumber;
+    /**
+     * Distance where the current scroll started, the Scroller positions are relative to it
+     */
+    private double mScrollAnchor;
+
+    private long mWidthRangeCount;
 
     private Paint mPaint;
 
@@ -92,10 +125,91 @@ public class RuleView extends View {
 
     private OnValueChangedListener mValueChangedListener;
 
+    private OnNumberChangedListener mNumberChangedListener;
+
+    private static final int TICK_STYLE_SHORT = 0;
+    private static final int TICK_STYLE_LONG = 1;
+
+    private final TickBatcher mTickBatcher = new TickBatcher(2);
+
+    /**
+     * Width of a cached gradation tile
+     */
+    private static final int GRADATION_TILE_WIDTH = 256;
+
+    private GradationTileCache mGradationTileCache;
+
+    /**
+     * How far a tick can paint outside its own position (half of the widest number rendered so far), so that tiles
+     * also draw the ticks of their neighbours whose numbers overlap them
+     * A custom formatter may make a middle label wider than the ends: it only grows, see {@link #drawGradationTiles}
+     */
+    private float mGradationTileMargin;
+
+    private final GradationTileCache.TileRenderer mGradationTileRenderer = new GradationTileCache.TileRenderer() {
+        @Override
+        public void renderTile(Canvas canvas, long tileIndex, int tileWidth) {
+            final double tileLeft = (double) tileIndex * tileWidth;
+            final long maxGradation = (mMaxNumber - mMinNumber) / mNumberUnit;
+            final long firstGradation = Math.max(0, (long) Math.ceil((tileLeft - mGradationTileMargin) / gradationGap));
+            final long lastGradation = Math.min(maxGradation,
+                    (long) Math.floor((tileLeft + tileWidth + mGradationTileMargin) / gradationGap));
+            if (firstGradation > lastGradation) {
+                return;
+            }
+            drawGradationRange(canvas, mMinNumber + firstGradation * mNumberUnit, mMinNumber + lastGradation * mNumberUnit,
+                    (float) (firstGradation * (double) gradationGap - tileLeft));
+        }
+    };
+
+    /**
+     * Number of labels whose text and width are cached
+     */
+    private static final int LABEL_CACHE_CAPACITY = 64;
+
+    /**
+     * null for the default label, the exact number without trailing zeros, see {@link #formatNumber(long)}
+     */
+    private LabelFormatter mLabelFormatter;
+
+    private final LabelCache mLabelCache = new LabelCache(LABEL_CACHE_CAPACITY);
+
+    /**
+     * The only numbers the indicator can stop at, null for every gradation
+     */
+    private AllowedValues mAllowedNumbers;
+
+    /**
+     * Values of {@link #mAllowedNumbers}, to convert them again when the decimal scale changes
+     */
+    private float[] mAllowedValues;
+
     public interface OnValueChangedListener{
         void onValueChanged(float value);
     }
 
+    /**
+     * Exact value changes, see {@link #setNumbers(long, long, long, long, int)}
+     */
+    public interface OnNumberChangedListener {
+        /**
+         * @param number current value * 10^decimalScale
+         */
+        void onNumberChanged(long number);
+    }
+
+    /**
+     * Text of the numbers under the long gradations
+     * Labels are cached, so the formatter is only called when a number comes into view for the first time
+     */
+    public interface LabelFormatter {
+        /**
+         * @param value value of the gradation
+         * @return label to draw
+         */
+        String format(float value);
+    }
+
 
     public RuleView(Context context) {
         this(context, null);
@@ -135,9 +249,12 @@ public class RuleView extends View {
         maxValue = ta.getFloat(R.styleable.RuleView_gv_maxValue, 150f);
         currentValue = ta.getFloat(R.styleable.RuleView_gv_currentValue, 50f);
         gradationUnit = ta.getFloat(R.styleable.RuleView_gv_gradationUnit, .1f);
+        decimalScale = ta.getInt(R.styleable.RuleView_gv_decimalScale, 1);
         numberPerCount = ta.getInt(R.styleable.RuleView_gv_numberPerCount, 10);
         gradationGap = ta.getDimension(R.styleable.RuleView_gv_gradationGap, dp2px(10));
         gradationNumberGap = ta.getDimension(R.styleable.RuleView_gv_gradationNumberGap, dp2px(8));
+        gradationCacheEnabled = ta.getBoolean(R.styleable.RuleView_gv_gradationCacheEnabled, false);
+        gradationCacheMaxBytes = ta.getInt(R.styleable.RuleView_gv_gradationCacheMaxBytes, 4 * 1024 * 1024);
         ta.recycle();
     }
 
@@ -155,26 +272,72 @@ public class RuleView extends View {
 
 
     private void convertValue2Number() {
-        mMinNumber = (int) (minValue * 10);
-        mMaxNumber = (int) (maxValue * 10);
-        mCurrentNumber = (int) (currentValue * 10);
-        mNumberUnit = (int) (gradationUnit * 10);
-        mCurrentDistance = (mCurrentNumber - mMinNumber) / mNumberUnit * gradationGap;
-        mNumberRangeDistance = (mMaxNumber - mMinNumber) / mNumberUnit * gradationGap;
+        checkDecimalScale(decimalScale);
+        mNumberScale = pow10(decimalScale);
+        mMinNumber = toNumber(minValue);
+        mMaxNumber = toNumber(maxValue);
+        mCurrentNumber = toNumber(currentValue);
+        mNumberUnit = toNumber(gradationUnit);
+        if (mNumberUnit <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "The gradationUnit of %f is not positive at the decimalScale of %d", gradationUnit, decimalScale));
+        }
+        calculateDistances();
+    }
+
+    private void calculateDistances() {
+        mCurrentDistance = distanceOf(mCurrentNumber);
+        mNumberRangeDistance = (mMaxNumber - mMinNumber) / mNumberUnit * (double) gradationGap;
         if (mWidth != 0) {
             // When initializing, calculate in onMeasure()
-            mWidthRangeNumber = (int) (mWidth / gradationGap * mNumberUnit);
+            mWidthRangeCount = (long) (mWidth / gradationGap);
         }
     }
 
+    private static void checkDecimalScale(int decimalScale) {
+        if (decimalScale < 0 || decimalScale > MAX_DECIMAL_SCALE) {
+            throw new IllegalArgumentException(String.format("The decimalScale of %d is out of range: [0, %d]",
+                    decimalScale, MAX_DECIMAL_SCALE));
+        }
+    }
+
+    private static long pow10(int exponent) {
+        long power = 1;
+        for (int i = 0; i < exponent; i++) {
+            power *= 10;
+        }
+        return power;
+    }
+
+    /**
+     * Float views of the numbers, read by the float getters and setters
+     */
+    private void updateValues() {
+        minValue = toValue(mMinNumber);
+        maxValue = toValue(mMaxNumber);
+        currentValue = toValue(mCurrentNumber);
+        gradationUnit = toValue(mNumberUnit);
+    }
+
+    /**
+     * Fixed-point number of a value, rounded to the nearest one
+     */
+    private long toNumber(float value) {
+        return Math.round((double) value * mNumberScale);
+    }
+
+    private float toValue(long number) {
+        return (float) ((double) number / mNumberScale);
+    }
+
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         mWidth = calculateSize(true, widthMeasureSpec);
         mHeight = calculateSize(false, heightMeasureSpec);
         mHalfWidth = mWidth >> 1;
-        if (mWidthRangeNumber == 0) {
-            mWidthRangeNumber = (int) (mWidth / gradationGap * mNumberUnit);
+        if (mWidthRangeCount == 0) {
+            mWidthRangeCount = (long) (mWidth / gradationGap);
         }
         setMeasuredDimension(mWidth, mHeight);
     }
@@ -241,8 +404,16 @@ public class RuleView extends View {
                 mVelocityTracker.computeCurrentVelocity(1000, MAX_FLING_VELOCITY);
                 int xVelocity = (int) mVelocityTracker.getXVelocity();
                 if (Math.abs(xVelocity) >= MIN_FLING_VELOCITY) {
-                    mScroller.fling((int)mCurrentDistance, 0, -xVelocity, 0,
-                            0, (int)mNumberRangeDistance, 0, 0);
+                    // Relative to the current distance, which may not fit in an int
+                    mScrollAnchor = mCurrentDistance;
+                    mScroller.fling(0, 0, -xVelocity, 0,
+                            (int) Math.max(Integer.MIN_VALUE, -mScrollAnchor),
+                            (int) Math.min(Integer.MAX_VALUE, mNumberRangeDistance - mScrollAnchor), 0, 0);
+                    if (mAllowedNumbers != null) {
+                        // End the fling on the allowed number nearest to where it would stop
+                        final long target = allowedNumberAt(mScrollAnchor + mScroller.getFinalX());
+                        mScroller.setFinalX((int) Math.round(distanceOf(target) - mScrollAnchor));
+                    }
                     invalidate();
                 } else {
                     scrollToGradation();
@@ -258,35 +429,80 @@ public class RuleView extends View {
 
     private void calculateValue() {
         mCurrentDistance = Math.min(Math.max(mCurrentDistance, 0), mNumberRangeDistance);
-        mCurrentNumber = mMinNumber + (int)(mCurrentDistance / gradationGap) * mNumberUnit;
-        currentValue = mCurrentNumber / 10f;
+        if (mAllowedNumbers != null) {
+            mCurrentNumber = allowedNumberAt(mCurrentDistance);
+        } else {
+            mCurrentNumber = mMinNumber + (long) (mCurrentDistance / gradationGap) * mNumberUnit;
+        }
+        currentValue = toValue(mCurrentNumber);
         logD("calculateValue: mCurrentDistance=%f, mCurrentNumber=%d, currentValue=%f",
                 mCurrentDistance, mCurrentNumber, currentValue);
-        if (mValueChangedListener != null) {
-            mValueChangedListener.onValueChanged(currentValue);
-        }
+        notifyValueChanged();
         invalidate();
     }
 
 
     private void scrollToGradation() {
-        mCurrentNumber = mMinNumber + Math.round(mCurrentDistance / gradationGap) * mNumberUnit;
-        mCurrentNumber = Math.min(Math.max(mCurrentNumber, mMinNumber), mMaxNumber);
-        mCurrentDistance = (mCurrentNumber - mMinNumber) / mNumberUnit * gradationGap;
-        currentValue = mCurrentNumber / 10f;
+        if (mAllowedNumbers != null) {
+            mCurrentNumber = allowedNumberAt(mCurrentDistance);
+            mCurrentDistance = distanceOf(mCurrentNumber);
+        } else {
+            mCurrentNumber = mMinNumber + Math.round(mCurrentDistance / gradationGap) * mNumberUnit;
+            mCurrentNumber = Math.min(Math.max(mCurrentNumber, mMinNumber), mMaxNumber);
+            mCurrentDistance = (mCurrentNumber - mMinNumber) / mNumberUnit * (double) gradationGap;
+        }
+        currentValue = toValue(mCurrentNumber);
         logD("scrollToGradation: mCurrentDistance=%f, mCurrentNumber=%d, currentValue=%f",
                 mCurrentDistance, mCurrentNumber, currentValue);
+        notifyValueChanged();
+        invalidate();
+    }
+
+    /**
+     * Allowed number nearest to the (not snapped) number at a distance
+     */
+    private long allowedNumberAt(double distance) {
+        final long number = mMinNumber + Math.round(distance / gradationGap * mNumberUnit);
+        return mAllowedNumbers.nearest(number, mMinNumber, mMaxNumber);
+    }
+
+    private void notifyValueChanged() {
         if (mValueChangedListener != null) {
             mValueChangedListener.onValueChanged(currentValue);
         }
-        invalidate();
+        if (mNumberChangedListener != null) {
+            mNumberChangedListener.onNumberChanged(mCurrentNumber);
+        }
+    }
+
+    /**
+     * Number given by code resolved like a drag: the nearest allowed number if there are some
+     */
+    private long allowedNumberNear(long number) {
+        return mAllowedNumbers != null ? mAllowedNumbers.nearest(number, mMinNumber, mMaxNumber) : number;
+    }
+
+    /**
+     * Jump to a number given by code, see {@link #allowedNumberNear(long)}
+     */
+    private void moveToNumber(long number) {
+        mCurrentNumber = allowedNumberNear(number);
+        currentValue = toValue(mCurrentNumber);
+        mCurrentDistance = distanceOf(mCurrentNumber);
+    }
+
+    /**
+     * Distance of any number, also between two gradations
+     */
+    private double distanceOf(long number) {
+        return (number - mMinNumber) / (double) mNumberUnit * gradationGap;
     }
 
     @Override
     public void computeScroll() {
         if (mScroller.computeScrollOffset()) {
+            mCurrentDistance = mScrollAnchor + mScroller.getCurrX();
             if (mScroller.getCurrX() != mScroller.getFinalX()) {
-                mCurrentDistance = mScroller.getCurrX();
                 calculateValue();
             } else {
                 scrollToGradation();
@@ -307,42 +523,150 @@ public class RuleView extends View {
         mPaint.setStrokeWidth(shortLineWidth);
         canvas.drawLine(0, shortLineWidth * .5f, mWidth, 0, mPaint);
 
-
-        int startNum = ((int) mCurrentDistance - mHalfWidth) / (int) gradationGap * mNumberUnit + mMinNumber;
-        final int expendUnit = mNumberUnit << 1;
-        startNum -= expendUnit;
-        if (startNum < mMinNumber) {
-            startNum = mMinNumber;
+        if (gradationCacheEnabled && drawGradationTiles(canvas)) {
+            return;
         }
-        int rightMaxNum = (startNum + expendUnit) + mWidthRangeNumber + expendUnit;
-        if (rightMaxNum > mMaxNumber) {
-            rightMaxNum = mMaxNumber;
+
+        // By gradation index: the numbers may not fit in the distance math of a float
+        final long maxGradation = (mMaxNumber - mMinNumber) / mNumberUnit;
+        final int expend = 2;
+        final long startGradation = Math.max(0, (long) Math.floor((mCurrentDistance - mHalfWidth) / gradationGap) - expend);
+        final long endGradation = Math.min(maxGradation, (startGradation + expend) + mWidthRangeCount + expend);
+        final long startNum = mMinNumber + startGradation * mNumberUnit;
+        final long rightMaxNum = mMinNumber + endGradation * mNumberUnit;
+        final float distance = (float) (mHalfWidth - (mCurrentDistance - startGradation * (double) gradationGap));
+        logD("drawGradation: startNum=%d, rightNum=%d", startNum, rightMaxNum);
+        drawGradationRange(canvas, startNum, rightMaxNum, distance);
+    }
+
+    /**
+     * Draw the ticks and numbers from startNum to endNum
+     * With allowed numbers, the short ticks are drawn at the allowed numbers instead of every gradation
+     * @param distance x coordinate of startNum
+     */
+    private void drawGradationRange(Canvas canvas, long startNum, long endNum, float distance) {
+        final long perUnitCount = mNumberUnit * numberPerCount;
+        mTickBatcher.setStyle(TICK_STYLE_SHORT, shortLineWidth, gradationColor);
+        mTickBatcher.setStyle(TICK_STYLE_LONG, longLineWidth, gradationColor);
+        if (mAllowedNumbers != null) {
+            final double startDistance = distance - distanceOf(startNum);
+            for (int i = mAllowedNumbers.lowerBound(startNum); i < mAllowedNumbers.size(); i++) {
+                final long number = mAllowedNumbers.get(i);
+                if (number > endNum) {
+                    break;
+                }
+                final float x = (float) (startDistance + distanceOf(number));
+                mTickBatcher.addLine(TICK_STYLE_SHORT, x, 0, x, shortGradationLen);
+            }
         }
-        float distance = mHalfWidth - (mCurrentDistance - (startNum - mMinNumber) / mNumberUnit * gradationGap);
-        final int perUnitCount = mNumberUnit * numberPerCount;
-        logD("drawGradation: startNum=%d, rightNum=%d, perUnitCount=%d",
-                startNum, rightMaxNum, perUnitCount);
-        while (startNum <= rightMaxNum) {
+        while (startNum <= endNum) {
             logD("drawGradation: startNum=%d", startNum);
             if (startNum % perUnitCount == 0) {
-                mPaint.setStrokeWidth(longLineWidth);
-                canvas.drawLine(distance, 0, distance, longGradationLen, mPaint);
-
-                float fNum = startNum / 10f;
-                String text = Float.toString(fNum);
-                logD("drawGradation: text=%s", text);
-                if (text.endsWith(".0")) {
-                    text = text.substring(0, text.length() - 2);
-                }
-                final float textWidth = mTextPaint.measureText(text);
-                canvas.drawText(text, distance - textWidth * .5f, longGradationLen + gradationNumberGap + textSize, mTextPaint);
-            } else {
-                mPaint.setStrokeWidth(shortLineWidth);
-                canvas.drawLine(distance, 0, distance, shortGradationLen, mPaint);
+                mTickBatcher.addLine(TICK_STYLE_LONG, distance, 0, distance, longGradationLen);
+
+                final int slot = getLabelSlot(startNum);
+                final char[] text = mLabelCache.getChars(slot);
+                final float halfWidth = mLabelCache.getWidth(slot) * .5f;
+                canvas.drawText(text, 0, text.length, distance - halfWidth,
+                        longGradationLen + gradationNumberGap + textSize, mTextPaint);
+                mGradationTileMargin = Math.max(mGradationTileMargin, halfWidth + longLineWidth);
+            } else if (mAllowedNumbers == null) {
+                mTickBatcher.addLine(TICK_STYLE_SHORT, distance, 0, distance, shortGradationLen);
             }
             startNum += mNumberUnit;
             distance += gradationGap;
         }
+        // All the ticks of a stroke width in one drawLines call
+        mTickBatcher.flush(canvas, mPaint);
+    }
+
+    /**
+     * Slot of the label of a number in {@link #mLabelCache}, formatting and measuring it on a miss
+     */
+    private int getLabelSlot(long number) {
+        // Labels are the multiples of unit * perCount, their quotient numbers them consecutively
+        final long ordinal = number / (mNumberUnit * numberPerCount);
+        int slot = mLabelCache.indexOf(number, ordinal);
+        if (slot < 0) {
+            final String text = mLabelFormatter == null
+                    ? formatNumber(number) : mLabelFormatter.format(toValue(number));
+            logD("getLabelSlot: number=%d, text=%s", number, text);
+            slot = mLabelCache.put(number, ordinal, text, mTextPaint.measureText(text));
+        }
+        return slot;
+    }
+
+    /**
+     * Exact text of a fixed-point number without trailing zeros: a float would print 1.2345675E7 or round the cents
+     */
+    private String formatNumber(long number) {
+        return BigDecimal.valueOf(number, decimalScale).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Blit the cached tiles covering the view, rendering the missing ones
+     * @return false if the budget cannot hold the tiles of one frame, the strip must then be drawn directly
+     */
+    private boolean drawGradationTiles(Canvas canvas) {
+        if (!GradationTileCache.canHoldFrame(mWidth, GRADATION_TILE_WIDTH, mHeight, gradationCacheMaxBytes)) {
+            if (mGradationTileCache != null) {
+                mGradationTileCache.release();
+                mGradationTileCache = null;
+            }
+            return false;
+        }
+        if (mGradationTileCache == null || mGradationTileCache.getTileHeight() != mHeight) {
+            if (mGradationTileCache != null) {
+                mGradationTileCache.release();
+                mGradationTileCache = null;
+            }
+            mGradationTileCache = new GradationTileCache(GRADATION_TILE_WIDTH, mHeight, gradationCacheMaxBytes);
+            mGradationTileMargin = measureGradationTileMargin();
+        }
+        final int tileWidth = mGradationTileCache.getTileWidth();
+        // x coordinate of the minimum value: strip pixel p is drawn at stripLeft + p
+        final double stripLeft = mHalfWidth - mCurrentDistance;
+        long firstTile;
+        long lastTile;
+        float margin;
+        do {
+            margin = mGradationTileMargin;
+            final long minTile = (long) Math.floor(-margin / tileWidth);
+            final long maxTile = (long) Math.floor((mNumberRangeDistance + margin) / tileWidth);
+            firstTile = Math.max(minTile, (long) Math.floor(-stripLeft / tileWidth));
+            lastTile = Math.min(maxTile, (long) Math.floor((mWidth - stripLeft) / tileWidth));
+            for (long tile = firstTile; tile <= lastTile; tile++) {
+                mGradationTileCache.getTile(tile, mGradationTileRenderer);
+            }
+            if (mGradationTileMargin > margin) {
+                // A rendered label was wider than the margin: the tiles rendered before it miss its overflow,
+                // render them again with the wider margin before anything is drawn
+                mGradationTileCache.invalidate();
+            }
+        } while (mGradationTileMargin > margin);
+        // The cache holds every visible tile, these are hits
+        for (long tile = firstTile; tile <= lastTile; tile++) {
+            // Snap to whole pixels so the tile is copied without resampling
+            final float left = Math.round(stripLeft + (double) tile * tileWidth);
+            canvas.drawBitmap(mGradationTileCache.getTile(tile, mGradationTileRenderer), left, 0, null);
+        }
+        return true;
+    }
+
+    /**
+     * First margin of the tiles, from the labels at both ends; it grows as wider labels are rendered
+     */
+    private float measureGradationTileMargin() {
+        final float minTextWidth = mLabelCache.getWidth(getLabelSlot(mMinNumber));
+        final float maxTextWidth = mLabelCache.getWidth(getLabelSlot(mMaxNumber));
+        return Math.max(minTextWidth, maxTextWidth) * .5f + longLineWidth;
+    }
+
+    private void invalidateGradationTiles() {
+        if (mGradationTileCache != null) {
+            mGradationTileCache.invalidate();
+            mGradationTileMargin = measureGradationTileMargin();
+        }
     }
 
     private void drawIndicator(Canvas canvas) {
@@ -370,20 +694,45 @@ public class RuleView extends View {
         }
     }
 
+    /**
+     * Scroll to a value, rounded to the decimal scale
+     */
     public void setCurrentValue(float currentValue) {
-        if (currentValue < minValue || currentValue > maxValue) {
-            throw new IllegalArgumentException(String.format("The currentValue of %f is out of range: [%f, %f]",
-                    currentValue, minValue, maxValue));
+        setCurrentNumber(toNumber(currentValue));
+    }
+
+    /**
+     * Scroll to a number
+     * @param number current value * 10^decimalScale
+     */
+    public void setCurrentNumber(long number) {
+        if (number < mMinNumber || number > mMaxNumber) {
+            throw new IllegalArgumentException(String.format("The currentNumber of %d is out of range: [%d, %d]",
+                    number, mMinNumber, mMaxNumber));
         }
         if (!mScroller.isFinished()) {
             mScroller.forceFinished(true);
         }
-        this.currentValue = currentValue;
-        mCurrentNumber = (int) (this.currentValue * 10);
-        final float newDistance = (mCurrentNumber - mMinNumber) / mNumberUnit * gradationGap;
-        final int dx = (int) (newDistance - mCurrentDistance);
-        final int duration = dx * 2000 / (int)mNumberRangeDistance;
-        mScroller.startScroll((int) mCurrentDistance, 0, dx, duration);
+        scrollToNumber(number);
+    }
+
+    /**
+     * Scroll to a number, relative to the current distance which may not fit in an int
+     */
+    private void scrollToNumber(long number) {
+        number = allowedNumberNear(number);
+        mCurrentNumber = number;
+        currentValue = toValue(number);
+        final double dx = distanceOf(number) - mCurrentDistance;
+        if (Math.abs(dx) > Integer.MAX_VALUE || mNumberRangeDistance <= 0) {
+            // Too far for the Scroller: jump
+            mCurrentDistance += dx;
+            scrollToGradation();
+            return;
+        }
+        mScrollAnchor = mCurrentDistance;
+        final int duration = (int) (Math.abs(dx) * 2000 / mNumberRangeDistance);
+        mScroller.startScroll(0, 0, (int) Math.round(dx), 0, duration);
         postInvalidate();
     }
 
@@ -399,27 +748,205 @@ public class RuleView extends View {
         return this.currentValue;
     }
 
+    /**
+     * Values rounded to the decimal scale, see {@link #setNumbers(long, long, long, long, int)}
+     * @throws IllegalArgumentException like setNumbers, also when the unit rounds to 0 at the decimal scale
+     */
     public void setValue(float minValue, float maxValue, float curValue, float unit, int perCount) {
-        if (minValue > maxValue || curValue < minValue || curValue > maxValue) {
-            throw new IllegalArgumentException(String.format("The given values are invalid, check firstly: " +
-                    "minValue=%f, maxValue=%f, curValue=%s", minValue, maxValue, curValue));
+        setNumbers(toNumber(minValue), toNumber(maxValue), toNumber(curValue), toNumber(unit), perCount);
+    }
+
+    /**
+     * Range and gradations in fixed-point numbers, exact whatever the range, e.g. 0..10,000,000 at 0.01
+     * The numbers are the state of the view, the float values are derived from them
+     *
+     * @param minNumber  minimum value * 10^decimalScale
+     * @param maxNumber  maximum value * 10^decimalScale
+     * @param curNumber  current value * 10^decimalScale
+     * @param unitNumber gradation unit * 10^decimalScale
+     * @param perCount   number of gradations between two numbers
+     */
+    public void setNumbers(long minNumber, long maxNumber, long curNumber, long unitNumber, int perCount) {
+        if (minNumber > maxNumber || curNumber < minNumber || curNumber > maxNumber || unitNumber <= 0
+                || perCount <= 0) {
+            throw new IllegalArgumentException(String.format("The given numbers are invalid, check firstly: " +
+                    "minNumber=%d, maxNumber=%d, curNumber=%d, unitNumber=%d, perCount=%d",
+                    minNumber, maxNumber, curNumber, unitNumber, perCount));
         }
         if (!mScroller.isFinished()) {
             mScroller.forceFinished(true);
         }
-        this.minValue = minValue;
-        this.maxValue = maxValue;
-        this.currentValue = curValue;
-        this.gradationUnit = unit;
+        mMinNumber = minNumber;
+        mMaxNumber = maxNumber;
+        mCurrentNumber = curNumber;
+        mNumberUnit = unitNumber;
         this.numberPerCount = perCount;
-        convertValue2Number();
-        if (mValueChangedListener != null) {
-            mValueChangedListener.onValueChanged(currentValue);
+        calculateDistances();
+        moveToNumber(curNumber);
+        updateValues();
+        invalidateGradationTiles();
+        notifyValueChanged();
+        postInvalidate();
+    }
+
+    /**
+     * @return current value * 10^decimalScale
+     */
+    public long getCurrentNumber() {
+        return mCurrentNumber;
+    }
+
+    public int getDecimalScale() {
+        return decimalScale;
+    }
+
+    /**
+     * Number of decimal places of the values: the numbers are rescaled by 10^(new - old) and keep their values,
+     * rounded to the nearest number when the scale decreases
+     * Note: set it before {@link #setNumbers(long, long, long, long, int)}, whose numbers are in this scale
+     *
+     * @param decimalScale 0 to 6
+     */
+    public void setDecimalScale(int decimalScale) {
+        checkDecimalScale(decimalScale);
+        if (decimalScale == this.decimalScale) {
+            return;
         }
+        if (!mScroller.isFinished()) {
+            mScroller.forceFinished(true);
+        }
+        final long factor = pow10(Math.abs(decimalScale - this.decimalScale));
+        if (decimalScale > this.decimalScale) {
+            final long limit = Long.MAX_VALUE / factor;
+            if (Math.max(Math.max(Math.abs(mMinNumber), Math.abs(mMaxNumber)), mNumberUnit) > limit) {
+                throw new IllegalArgumentException(String.format(
+                        "The numbers [%d, %d] or unit %d overflow at the decimalScale of %d",
+                        mMinNumber, mMaxNumber, mNumberUnit, decimalScale));
+            }
+            mMinNumber *= factor;
+            mMaxNumber *= factor;
+            mCurrentNumber *= factor;
+            mNumberUnit *= factor;
+        } else {
+            // Rounding is monotonic, so the current number stays in the range
+            mMinNumber = divideRounded(mMinNumber, factor);
+            mMaxNumber = divideRounded(mMaxNumber, factor);
+            mCurrentNumber = divideRounded(mCurrentNumber, factor);
+            mNumberUnit = Math.max(1, divideRounded(mNumberUnit, factor));
+        }
+        this.decimalScale = decimalScale;
+        mNumberScale = pow10(decimalScale);
+        // The allowed values were given as values: they are converted at the new scale
+        convertAllowedValues();
+        calculateDistances();
+        moveToNumber(mCurrentNumber);
+        updateValues();
+        mLabelCache.clear();
+        invalidateGradationTiles();
+        notifyValueChanged();
         postInvalidate();
     }
 
+    /**
+     * Nearest integer of number / divisor, halves away from zero
+     */
+    private static long divideRounded(long number, long divisor) {
+        final long quotient = number / divisor;
+        final long remainder = number % divisor;
+        return Math.abs(remainder) * 2 >= divisor ? quotient + Long.signum(number) : quotient;
+    }
+
+    /**
+     * Only stop at some values: dragging, flinging, the listener and the values set by code resolve to
+     * the nearest allowed value, and the short gradations are drawn at the allowed values
+     * @param values allowed values in any order, values out of [minValue, maxValue] are never reached;
+     *               null allows every gradation again
+     * @throws IllegalArgumentException if values is empty, the allowed values are then left unchanged
+     */
+    public void setAllowedValues(@Nullable float[] values) {
+        final float[] allowedValues = values != null ? values.clone() : null;
+        // Converted first, so an empty array throws before anything changes
+        mAllowedNumbers = toAllowedNumbers(allowedValues);
+        mAllowedValues = allowedValues;
+        if (!mScroller.isFinished()) {
+            mScroller.forceFinished(true);
+        }
+        scrollToGradation();
+        invalidateGradationTiles();
+    }
+
+    private void convertAllowedValues() {
+        mAllowedNumbers = toAllowedNumbers(mAllowedValues);
+    }
+
+    private AllowedValues toAllowedNumbers(float[] values) {
+        if (values == null) {
+            return null;
+        }
+        final long[] numbers = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            numbers[i] = toNumber(values[i]);
+        }
+        return new AllowedValues(numbers);
+    }
+
     public void setOnValueChangedListener(OnValueChangedListener listener) {
         this.mValueChangedListener = listener;
     }
+
+    public void setOnNumberChangedListener(OnNumberChangedListener listener) {
+        this.mNumberChangedListener = listener;
+    }
+
+    /**
+     * Set the text of the numbers under the long gradations
+     * @param formatter formatter, null restores the default (the exact value without trailing zeros)
+     */
+    public void setLabelFormatter(@Nullable LabelFormatter formatter) {
+        this.mLabelFormatter = formatter;
+        mLabelCache.clear();
+        invalidateGradationTiles();
+        postInvalidate();
+    }
+
+    /**
+     * Render the gradation strip into cached Bitmap tiles, so scrolling only copies tiles
+     * instead of drawing every tick and number on each frame
+     * @param enabled whether to use the tile cache
+     */
+    public void setGradationCacheEnabled(boolean enabled) {
+        if (this.gradationCacheEnabled == enabled) {
+            return;
+        }
+        this.gradationCacheEnabled = enabled;
+        if (!enabled) {
+            releaseGradationTiles();
+        }
+        postInvalidate();
+    }
+
+    /**
+     * Memory budget of the gradation tiles
+     * @param maxBytes maximum bytes of all tiles together; if it cannot hold the tiles covering the view,
+     *                 the strip is drawn directly
+     */
+    public void setGradationCacheMaxBytes(int maxBytes) {
+        this.gradationCacheMaxBytes = maxBytes;
+        releaseGradationTiles();
+        postInvalidate();
+    }
+
+    private void releaseGradationTiles() {
+        if (mGradationTileCache != null) {
+            mGradationTileCache.release();
+            mGradationTileCache = null;
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // Tiles are rendered again on demand after reattaching
+        releaseGradationTiles();
+    }
 }
@@ -0,0 +1,287 @@
+package com.myairmed.widget;
+
+import java.util.Arrays;
+
+/**
+ * ScaleMapping
+ *
+ * Values of the ticks of {@link MoneySelectRuleView}: tick i is drawn at i * unitGap and reads {@link #valueAt(long)}
+ *
+ * Ideas:
+ *  - The ruler only knows tick indices, so the scroll distance is bounded by the number of ticks, not by the amount
+ *  - Both directions are closed-form (or a binary search over the segments),
+ *    so the visible ticks are still generated in O(visible ticks)
+ *  - Values are in minor units, like the amounts of the view
+ */
+public abstract class ScaleMapping {
+
+    /**
+     * Value of a tick, unit: minor units
+     */
+    public abstract long valueAt(long index);
+
+    /**
+     * Index of the last tick at or below a value (0 below the first tick)
+     */
+    public abstract long indexOf(long value);
+
+    /**
+     * Whether a tick is long and labeled
+     */
+    public abstract boolean isLabeled(long index);
+
+    /**
+     * Rank of a labeled tick among the labeled ticks: consecutive labels have consecutive ordinals
+     * The labels of the view are cached by ordinal, so with the default (the tick index) sparse labels
+     * may share a cache slot; override it to keep a window of labels in distinct slots
+     */
+    public long labelOrdinalOf(long index) {
+        return index;
+    }
+
+    /**
+     * Value every labeled tick is a multiple of, so that all the labels can be formatted with the same digits
+     * The default of 1 assumes nothing, override it when the labels are round values, unit: minor units
+     */
+    public long getLabelStep() {
+        return 1;
+    }
+
+    /**
+     * Evenly spaced ticks
+     */
+    public static final class Linear extends ScaleMapping {
+
+        private final long mUnit;
+        private final int mPerCount;
+
+        /**
+         * @param unit     value between two ticks, unit: minor units
+         * @param perCount number of ticks between two labels
+         */
+        public Linear(long unit, int perCount) {
+            if (unit <= 0 || perCount <= 0) {
+                throw new IllegalArgumentException(String.format("The unit of %d or perCount of %d is invalid",
+                        unit, perCount));
+            }
+            this.mUnit = unit;
+            this.mPerCount = perCount;
+        }
+
+        @Override
+        public long valueAt(long index) {
+            return index * mUnit;
+        }
+
+        @Override
+        public long indexOf(long value) {
+            return Math.max(0, value / mUnit);
+        }
+
+        @Override
+        public boolean isLabeled(long index) {
+            return index % mPerCount == 0;
+        }
+
+        @Override
+        public long labelOrdinalOf(long index) {
+            return index / mPerCount;
+        }
+
+        @Override
+        public long getLabelStep() {
+            return mUnit * mPerCount;
+        }
+    }
+
+    /**
+     * Logarithmic ticks: 0, then 1..9 times base, 10..90 times base, ..., every power of ten is labeled
+     */
+    public static final class Log10 extends ScaleMapping {
+
+        private static final int TICKS_PER_DECADE = 9;
+
+        private final long mBase;
+
+        /**
+         * @param base value of the first tick after 0, unit: minor units
+         */
+        public Log10(long base) {
+            if (base <= 0) {
+                throw new IllegalArgumentException(String.format("The base of %d is invalid", base));
+            }
+            this.mBase = base;
+        }
+
+        /**
+         * Saturates at Long.MAX_VALUE past the last tick that fits in a long
+         */
+        @Override
+        public long valueAt(long index) {
+            if (index <= 0) {
+                return 0;
+            }
+            long power = mBase;
+            for (long decade = (index - 1) / TICKS_PER_DECADE; decade > 0; decade--) {
+                if (power > Long.MAX_VALUE / 10) {
+                    return Long.MAX_VALUE;
+                }
+                power *= 10;
+            }
+            final long mantissa = (index - 1) % TICKS_PER_DECADE + 1;
+            return power > Long.MAX_VALUE / mantissa ? Long.MAX_VALUE : mantissa * power;
+        }
+
+        @Override
+        public long indexOf(long value) {
+            if (value < mBase) {
+                return 0;
+            }
+            long power = mBase;
+            long decade = 0;
+            // power * 10 <= value, so it cannot overflow
+            while (value / power >= 10) {
+                power *= 10;
+                decade++;
+            }
+            return 1 + decade * TICKS_PER_DECADE + (value / power - 1);
+        }
+
+        @Override
+        public boolean isLabeled(long index) {
+            return index == 0 || (index - 1) % TICKS_PER_DECADE == 0;
+        }
+
+        @Override
+        public long labelOrdinalOf(long index) {
+            // 0, then one power of ten per decade
+            return index <= 0 ? 0 : (index - 1) / TICKS_PER_DECADE + 1;
+        }
+
+        @Override
+        public long getLabelStep() {
+            return mBase;
+        }
+    }
+
+    /**
+     * Linear segments with their own unit, e.g. 1 up to 100, then 10 up to 1,000, then 100
+     */
+    public static final class Piecewise extends ScaleMapping {
+
+        private final long[] mStarts;
+        private final long[] mUnits;
+        private final int[] mPerCounts;
+        private final long[] mFirstIndices;
+        private final long[] mFirstLabelOrdinals;
+        private final long mLabelStep;
+
+        /**
+         * @param starts    ascending start values of the segments, the first one is 0 and the last segment is unbounded,
+         *                  the length of a segment is a multiple of its unit, unit: minor units
+         * @param units     value between two ticks of each segment, unit: minor units
+         * @param perCounts number of ticks between two labels of each segment
+         */
+        public Piecewise(long[] starts, long[] units, int[] perCounts) {
+            if (starts.length == 0 || starts.length != units.length || starts.length != perCounts.length) {
+                throw new IllegalArgumentException(String.format("%d starts, %d units and %d perCounts do not match",
+                        starts.length, units.length, perCounts.length));
+            }
+            if (starts[0] != 0) {
+                throw new IllegalArgumentException(String.format("The first segment starts at %d instead of 0", starts[0]));
+            }
+            mStarts = starts.clone();
+            mUnits = units.clone();
+            mPerCounts = perCounts.clone();
+            mFirstIndices = new long[starts.length];
+            mFirstLabelOrdinals = new long[starts.length];
+            long labelStep = 0;
+            for (int i = 0; i < starts.length; i++) {
+                if (units[i] <= 0 || perCounts[i] <= 0) {
+                    throw new IllegalArgumentException(String.format("The unit of %d or perCount of %d at %d is invalid",
+                            units[i], perCounts[i], i));
+                }
+                if (i > 0) {
+                    final long length = starts[i] - starts[i - 1];
+                    if (length <= 0 || length % units[i - 1] != 0) {
+                        throw new IllegalArgumentException(String.format(
+                                "The segment [%d, %d) is empty or not a multiple of its unit %d",
+                                starts[i - 1], starts[i], units[i - 1]));
+                    }
+                    mFirstIndices[i] = mFirstIndices[i - 1] + length / units[i - 1];
+                    // Labels of the previous segment: the multiples of its label step in [start, next start)
+                    final long step = units[i - 1] * perCounts[i - 1];
+                    mFirstLabelOrdinals[i] = mFirstLabelOrdinals[i - 1]
+                            + ceilDiv(starts[i], step) - ceilDiv(starts[i - 1], step);
+                }
+                labelStep = gcd(labelStep, units[i] * perCounts[i]);
+            }
+            mLabelStep = labelStep;
+        }
+
+        @Override
+        public long valueAt(long index) {
+            if (index <= 0) {
+                return 0;
+            }
+            final int segment = segmentOf(mFirstIndices, index);
+            return mStarts[segment] + (index - mFirstIndices[segment]) * mUnits[segment];
+        }
+
+        @Override
+        public long indexOf(long value) {
+            if (value <= 0) {
+                return 0;
+            }
+            final int segment = segmentOf(mStarts, value);
+            return mFirstIndices[segment] + (value - mStarts[segment]) / mUnits[segment];
+        }
+
+        @Override
+        public boolean isLabeled(long index) {
+            if (index <= 0) {
+                return true;
+            }
+            final int segment = segmentOf(mFirstIndices, index);
+            return valueAt(index) % (mUnits[segment] * mPerCounts[segment]) == 0;
+        }
+
+        @Override
+        public long labelOrdinalOf(long index) {
+            if (index <= 0) {
+                return 0;
+            }
+            final int segment = segmentOf(mFirstIndices, index);
+            final long step = mUnits[segment] * mPerCounts[segment];
+            final long value = mStarts[segment] + (index - mFirstIndices[segment]) * mUnits[segment];
+            return mFirstLabelOrdinals[segment] + value / step - ceilDiv(mStarts[segment], step);
+        }
+
+        @Override
+        public long getLabelStep() {
+            // The labels of a segment are multiples of its own step
+            return mLabelStep;
+        }
+
+        private static long ceilDiv(long value, long divisor) {
+            return (value + divisor - 1) / divisor;
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                final long r = a % b;
+                a = b;
+                b = r;
+            }
+            return a;
+        }
+
+        /**
+         * Last segment whose first key is at or below the key
+         */
+        private static int segmentOf(long[] firstKeys, long key) {
+            final int i = Arrays.binarySearch(firstKeys, key);
+            return i >= 0 ? i : -i - 2;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.myairmed.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.os.Build;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * ThermometerScaleLayer
+ *
+ * Cached drawing of the static part of a thermometer: background, titles, scales and body
+ *
+ * Ideas:
+ *  - The content only depends on the size and the configuration, not on the current value,
+ *    so it is rendered once and replayed on every frame
+ *  - Layers are shared process-wide: thermometers with the same configuration and size obtain the same layer,
+ *    which is rendered by the first one that draws and freed when the last one recycles it
+ *  - A Picture is used when the target canvas can play it back (software canvas, or hardware canvas from API 23),
+ *    otherwise the content is rasterized into a Bitmap
+ */
+final class ThermometerScaleLayer {
+
+    interface Renderer {
+        /**
+         * Draw the static content, in view coordinates
+         */
+        void render(Canvas canvas);
+    }
+
+    private static final HashMap<Key, ThermometerScaleLayer> sLayers = new HashMap<>();
+
+    private final Key mKey;
+    private int mRefCount;
+
+    private Picture mPicture;
+    private Bitmap mBitmap;
+
+    private ThermometerScaleLayer(Key key) {
+        this.mKey = key;
+    }
+
+    /**
+     * Get the layer of a configuration, creating it if no thermometer uses it yet
+     * Every call must be balanced by {@link #recycle()}
+     * @param config everything the static content depends on, sizes included
+     */
+    static synchronized ThermometerScaleLayer obtain(int[] config) {
+        final Key key = new Key(config);
+        ThermometerScaleLayer layer = sLayers.get(key);
+        if (layer == null) {
+            layer = new ThermometerScaleLayer(key);
+            sLayers.put(key, layer);
+        }
+        layer.mRefCount++;
+        return layer;
+    }
+
+    /**
+     * Give the layer back, its content is freed when no thermometer uses it anymore
+     */
+    void recycle() {
+        synchronized (ThermometerScaleLayer.class) {
+            if (--mRefCount > 0) {
+                return;
+            }
+            sLayers.remove(mKey);
+        }
+        mPicture = null;
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+        }
+    }
+
+    /**
+     * Draw the layer, rendering it first if needed
+     */
+    void draw(Canvas canvas, int width, int height, Renderer renderer) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        final boolean usePicture = !canvas.isHardwareAccelerated() || Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+        if (usePicture && mPicture == null) {
+            mPicture = new Picture();
+            renderer.render(mPicture.beginRecording(width, height));
+            mPicture.endRecording();
+        } else if (!usePicture && mBitmap == null) {
+            mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            renderer.render(new Canvas(mBitmap));
+        }
+        if (usePicture) {
+            canvas.drawPicture(mPicture);
+        } else {
+            canvas.drawBitmap(mBitmap, 0, 0, null);
+        }
+    }
+
+    private static final class Key {
+        private final int[] mConfig;
+        private final int mHashCode;
+
+        Key(int[] config) {
+            this.mConfig = config;
+            this.mHashCode = Arrays.hashCode(config);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(mConfig, ((Key) o).mConfig);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.myairmed.widget;
+
+/**
+ * ThermometerScaleModel
+ *
+ * Mapping between the y coordinate and the temperature of a thermometer scale
+ *
+ * Ideas:
+ *  - The scale is linear: tick i is at y = top + i * scaleSpaceHeight and reads maxValue - i / 10,
+ *    so the nearest tick of a touch is a rounding instead of a search over the ticks
+ *  - It only depends on the size, so it is computed in onSizeChanged and read while dragging without allocating
+ *  - The drawn ticks are the absolute multiples of their step (0, 5, 10... tenths), not counted from the maximum,
+ *    so a labeled tick reads a round value even when the maximum is not one
+ *  - Wide ranges would draw overlapping ticks: the tick step is the smallest of 1, 2, 5, 10, 20, 50... tenths
+ *    whose ticks are at least minTickSpacing apart, and the mid and major (labeled) steps are promoted with it,
+ *    so the number of ticks follows the height instead of the range
+ */
+final class ThermometerScaleModel {
+
+    private final float mTop;
+    private final float mScaleSpaceHeight;
+    private final float mMaxValue;
+    private final int mLastIndex;
+    private final int mTickStep;
+    private final int mMidStep;
+    private final int mMajorStep;
+
+    /**
+     * @param top              y coordinate of the first tick (the maximum value)
+     * @param scaleSpaceHeight distance between two ticks (0.1℃)
+     * @param maxValue         value of the first tick, unit: ℃
+     * @param lastIndex        index of the last tick (the minimum value)
+     * @param minTickSpacing   minimum distance between two drawn ticks
+     * @param minLabelSpacing  minimum distance between two labels
+     */
+    ThermometerScaleModel(float top, float scaleSpaceHeight, float maxValue, int lastIndex,
+                          float minTickSpacing, float minLabelSpacing) {
+        this.mTop = top;
+        this.mScaleSpaceHeight = scaleSpaceHeight;
+        this.mMaxValue = maxValue;
+        this.mLastIndex = lastIndex;
+
+        // 1-2-5 sequence: mantissa * magnitude tenths
+        int mantissa = 1;
+        int magnitude = 1;
+        while (scaleSpaceHeight > 0 && mantissa * magnitude <= lastIndex
+                && (mantissa * magnitude * scaleSpaceHeight < minTickSpacing
+                || majorStep(mantissa, magnitude) * scaleSpaceHeight < minLabelSpacing)) {
+            if (mantissa == 1) {
+                mantissa = 2;
+            } else if (mantissa == 2) {
+                mantissa = 5;
+            } else {
+                mantissa = 1;
+                magnitude *= 10;
+            }
+        }
+        mTickStep = mantissa * magnitude;
+        // 1 -> mid 5, major 10 (the full scale); 2 -> mid 10, major 20; 5 -> mid 10, major 50
+        mMidStep = (mantissa == 1 ? 5 : 10) * magnitude;
+        mMajorStep = majorStep(mantissa, magnitude);
+    }
+
+    private static int majorStep(int mantissa, int magnitude) {
+        return mantissa * 10 * magnitude;
+    }
+
+    /**
+     * Index of the tick nearest to a y coordinate, clamped to the scale
+     */
+    int indexOf(float y) {
+        if (mScaleSpaceHeight <= 0) {
+            return 0;
+        }
+        final int index = Math.round((y - mTop) / mScaleSpaceHeight);
+        return Math.min(Math.max(index, 0), mLastIndex);
+    }
+
+    /**
+     * Value of a tick, unit: ℃
+     */
+    float valueAt(int index) {
+        return (float) (mMaxValue - index * 0.1);
+    }
+
+    /**
+     * Value of a tick in whole tenths, unit: 0.1℃
+     */
+    int tenthsAt(int index) {
+        return Math.round(mMaxValue * 10) - index;
+    }
+
+    /**
+     * Index of the first tick whose value is a whole multiple of a step, so that the ticks drawn every step
+     * (and their labels) read round values whatever the maximum value is
+     * @param step index step, e.g. {@link #getMajorStep()}
+     */
+    int firstIndexOf(int step) {
+        final int remainder = tenthsAt(0) % step;
+        return remainder < 0 ? remainder + step : remainder;
+    }
+
+    /**
+     * y coordinate of a tick
+     */
+    float yAt(int index) {
+        return mTop + mScaleSpaceHeight * index;
+    }
+
+    /**
+     * y coordinate of any value (not snapped to a tick), unit: ℃
+     */
+    float yOf(float value) {
+        return mTop + (mMaxValue - value) * 10 * mScaleSpaceHeight;
+    }
+
+    /**
+     * Index step between two drawn ticks
+     */
+    int getTickStep() {
+        return mTickStep;
+    }
+
+    /**
+     * Index step between two medium ticks, a multiple of {@link #getTickStep()}
+     */
+    int getMidStep() {
+        return mMidStep;
+    }
+
+    /**
+     * Index step between two long, labeled ticks, a multiple of {@link #getMidStep()} and of 10 (whole degrees)
+     */
+    int getMajorStep() {
+        return mMajorStep;
+    }
+
+    /**
+     * Value of the tick nearest to a y coordinate, unit: ℃
+     */
+    float snapToTenth(float y) {
+        return valueAt(indexOf(y));
+    }
+}
@@ -0,0 +1,117 @@
+package com.myairmed.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * ThermometerShadow
+ *
+ * Pre-rendered blurred silhouette of a thermometer, drawn under its body
+ *
+ * Ideas:
+ *  - Paint.setShadowLayer on shapes needs a software layer before API 28, which puts the whole view on the CPU rasterizer
+ *  - Instead the silhouette is blurred once (per size) into an ALPHA_8 mask with a BlurMaskFilter, on a Bitmap canvas,
+ *    which is always software; drawing an alpha mask with a paint tints it with the paint color,
+ *    so the view itself can stay hardware accelerated
+ *  - The bounds of the mask are computed from the shape, so a frame only blits the mask once it is rendered
+ */
+final class ThermometerShadow {
+
+    private final float mRadius;
+    private final Path mSilhouette = new Path();
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private Bitmap mMask;
+    private boolean mMaskRendered;
+    private float mMaskLeft;
+    private float mMaskTop;
+    private int mMaskWidth;
+    private int mMaskHeight;
+
+    /**
+     * @param radius blur radius, the same meaning as the radius of Paint.setShadowLayer
+     */
+    ThermometerShadow(float radius) {
+        this.mRadius = radius;
+    }
+
+    /**
+     * Set the silhouette of the thermometer (top circle, bottom circle and the tube between them)
+     */
+    void setShape(float centerX, float topY, float topRadius, float bottomY, float bottomRadius, RectF tube) {
+        mSilhouette.reset();
+        mSilhouette.addCircle(centerX, topY, topRadius, Path.Direction.CW);
+        mSilhouette.addCircle(centerX, bottomY, bottomRadius, Path.Direction.CW);
+        mSilhouette.addRect(tube, Path.Direction.CW);
+
+        final float left = Math.min(tube.left, centerX - Math.max(topRadius, bottomRadius));
+        final float right = Math.max(tube.right, centerX + Math.max(topRadius, bottomRadius));
+        final float top = Math.min(tube.top, Math.min(topY - topRadius, bottomY - bottomRadius));
+        final float bottom = Math.max(tube.bottom, Math.max(topY + topRadius, bottomY + bottomRadius));
+        // Room for the blur on every side
+        final float padding = (float) Math.ceil(mRadius * 2);
+        mMaskLeft = (float) Math.floor(left - padding);
+        mMaskTop = (float) Math.floor(top - padding);
+        mMaskWidth = right > left ? (int) Math.ceil(right + padding - mMaskLeft) : 0;
+        mMaskHeight = bottom > top ? (int) Math.ceil(bottom + padding - mMaskTop) : 0;
+        releaseMask();
+    }
+
+    float getMaskLeft() {
+        return mMaskLeft;
+    }
+
+    float getMaskTop() {
+        return mMaskTop;
+    }
+
+    int getMaskWidth() {
+        return mMaskWidth;
+    }
+
+    int getMaskHeight() {
+        return mMaskHeight;
+    }
+
+    /**
+     * Draw the shadow, rendering the mask first if needed
+     * @param color shadow color
+     */
+    void draw(Canvas canvas, int color) {
+        if (mMaskWidth == 0 || mMaskHeight == 0) {
+            return;
+        }
+        if (!mMaskRendered) {
+            renderMask();
+        }
+        mPaint.setColor(color);
+        canvas.drawBitmap(mMask, mMaskLeft, mMaskTop, mPaint);
+    }
+
+    /**
+     * Drop the mask, it is rendered again on the next draw
+     */
+    void release() {
+        releaseMask();
+    }
+
+    private void renderMask() {
+        mMask = Bitmap.createBitmap(mMaskWidth, mMaskHeight, Bitmap.Config.ALPHA_8);
+
+        Canvas maskCanvas = new Canvas(mMask);
+        maskCanvas.translate(-mMaskLeft, -mMaskTop);
+        Paint blurPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        blurPaint.setMaskFilter(new BlurMaskFilter(mRadius, BlurMaskFilter.Blur.NORMAL));
+        maskCanvas.drawPath(mSilhouette, blurPaint);
+        mMaskRendered = true;
+    }
+
+    private void releaseMask() {
+        // Not recycled: a recorded (possibly shared) scale layer Picture may still draw it
+        mMask = null;
+        mMaskRendered = false;
+    }
+}
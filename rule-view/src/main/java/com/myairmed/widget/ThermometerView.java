@@ -1,15 +1,11 @@
 package com.myairmed.widget;
 
-import android.animation.ObjectAnimator;
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
+import android.graphics.Path;
 import android.graphics.RectF;
 import android.text.Layout;
 import android.text.TextPaint;
@@ -17,14 +13,9 @@ import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.LinearInterpolator;
 
 import androidx.annotation.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.TreeMap;
-
 public class ThermometerView extends View {
 
     private int viewBg; // background color
@@ -53,6 +44,22 @@ public class ThermometerView extends View {
     private float maxScaleValue; // The maximum value of the
     private float minScaleValue; // The minimum value of the thermometer
     private float curScaleValue; // current scale value
+    private float minScaleSpacing; // Minimum distance between two drawn ticks, denser ticks are skipped
+    private float[] mercuryColorThresholds; // Thresholds of the mercury color bands, or stops of the gradient
+    private int[] leftMercuryColors; // Mercury colors on the left, one per band or stop
+    private int[] rightMercuryColors; // Mercury colors on the right, one per band or stop
+    private boolean mercuryColorGradient; // Interpolate the mercury colors between the stops instead of using bands
+    private boolean mercuryWaveEnabled; // Animate a wave on the mercury surface
+    private float mercuryWaveAmplitude; // Height of a wave crest above the mercury level
+    private float mercuryWaveLength; // Distance between two wave crests
+
+    // Default bands: [35, 37] green, (37, 39] orange, above 39 red
+    private static final float[] DEFAULT_MERCURY_COLOR_THRESHOLDS = {37f, 39f};
+    private static final int[] DEFAULT_LEFT_MERCURY_COLORS = {0xFFB2FF59, 0xFFFFAB40, 0xFFFF5252};
+    private static final int[] DEFAULT_RIGHT_MERCURY_COLORS = {0xFF76FF03, 0xFFFF9100, 0xFFF44336};
+
+    private MercuryColorLut leftMercuryLut; // Mercury color on the left by value
+    private MercuryColorLut rightMercuryLut; // Mercury color on the right by value
 
     private int mWidth; // width
     private float mPaddingTop; // Top content indent
@@ -86,8 +93,46 @@ public class ThermometerView extends View {
     private Paint mLinePaint;
 
     private Paint mPaint;
-    private Bitmap bitmap;
-    private Canvas bitmapCanvas;
+    private final Path mercuryPath = new Path(); // Outline of the mercury, the mercury height is clipped to it
+
+    // One animator per view, retargeted when a new value arrives during an animation
+    private final RetargetingAnimator mValueAnimator = new RetargetingAnimator(new RetargetingAnimator.Listener() {
+        @Override
+        public void onValueUpdate(float value) {
+            setResetCurValue(value);
+            invalidate();
+        }
+
+        @Override
+        public void onValueSettled(float value) {
+            setResetCurValue(value);
+            changeMercuryColor(curScaleValue);
+            invalidate();
+        }
+    }, 0.001f);
+
+    private static final long WAVE_PERIOD_MILLIS = 1500;
+    private MercuryWave mWave; // Created when the wave is first enabled
+    private boolean mAttached; // Between onAttachedToWindow and onDetachedFromWindow
+
+    private static final float SHADOW_RADIUS = 8f;
+    private final ThermometerShadow mShadow = new ThermometerShadow(SHADOW_RADIUS);
+
+    // Background, titles, scales, thermometer body and mercury background: they do not change while the value changes.
+    // Shared with the thermometers of the same configuration and size
+    private ThermometerScaleLayer mScaleLayer;
+    private final ThermometerScaleLayer.Renderer mScaleLayerRenderer = new ThermometerScaleLayer.Renderer() {
+        @Override
+        public void render(Canvas canvas) {
+            canvas.drawColor(viewBg);
+
+            drawScaleTitleText(canvas);
+            drawScaleText(canvas);
+
+            drawShapeBg(mPaint, canvas);
+            drawShape(mPaint, canvas);
+        }
+    };
 
 
     ValueUpdateListener valueUpdateListener;
@@ -100,6 +145,36 @@ public class ThermometerView extends View {
         void onValueValidated(float value);
     }
 
+    private int mHistoryCapacity = DEFAULT_HISTORY_CAPACITY;
+    private FloatRingBuffer mHistory; // Last readings, oldest first; created on the first reading
+    private float[] mHistoryPoints; // drawLines buffer of the history, reused on every frame
+    private final Paint mHistoryPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private int historyLineColor; // Color of the history line, the long scale color until set
+    private float historyLeft; // Left of the history area, right of the Celsius scale
+    private float historyRight; // Right of the history area
+
+    private ValueSource mValueSource; // Live readings, taken at most once per frame
+    private float mValueSmoothing; // Weight of the previous value in the exponential smoothing, 0 = none
+    private float mSmoothedValue;
+    private boolean mHasSmoothedValue;
+
+    private final ValueSource.Receiver mValueReceiver = new ValueSource.Receiver() {
+        @Override
+        public void onValueAvailable() {
+            // Any thread: take the reading on the next frame
+            postOnAnimation(mTakeValueRunnable);
+        }
+    };
+
+    private final Runnable mTakeValueRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mValueSource != null) {
+                takeSourceValue();
+            }
+        }
+    };
+
     public ThermometerView(Context context) {
         super(context);
         init(null);
@@ -123,6 +198,7 @@ public class ThermometerView extends View {
         this.scaleTextSize = builder.scaleTextSize;
         this.scaleTextColor = builder.scaleTextColor;
         this.maxScaleLineColor = builder.maxScaleLineColor;
+        this.historyLineColor = builder.maxScaleLineColor;
         this.midScaleLineColor = builder.midScaleLineColor;
         this.minScaleLineColor = builder.minScaleLineColor;
         this.scaleLineWidth = builder.scaleLineWidth;
@@ -143,6 +219,14 @@ public class ThermometerView extends View {
         this.maxScaleValue = builder.maxScaleValue;
         this.minScaleValue = builder.minScaleValue;
         this.curScaleValue = builder.curScaleValue;
+        this.minScaleSpacing = builder.minScaleSpacing;
+        this.mercuryColorThresholds = builder.mercuryColorThresholds;
+        this.leftMercuryColors = builder.leftMercuryColors;
+        this.rightMercuryColors = builder.rightMercuryColors;
+        this.mercuryColorGradient = builder.mercuryColorGradient;
+        this.mercuryWaveEnabled = builder.mercuryWaveEnabled;
+        this.mercuryWaveAmplitude = builder.mercuryWaveAmplitude;
+        this.mercuryWaveLength = builder.mercuryWaveLength;
 
         initConfig();
     }
@@ -155,6 +239,7 @@ public class ThermometerView extends View {
         scaleTextSize = typedArray.getDimension(R.styleable.ThermometerView_scaleTextSize, 26f);
         scaleTextColor = typedArray.getColor(R.styleable.ThermometerView_scaleTextColor, Color.parseColor("#464646"));
         maxScaleLineColor = typedArray.getColor(R.styleable.ThermometerView_maxScaleLineColor, Color.parseColor("#787878"));
+        historyLineColor = maxScaleLineColor;
         midScaleLineColor = typedArray.getColor(R.styleable.ThermometerView_midScaleLineColor, Color.parseColor("#A9A9A9"));
         minScaleLineColor = typedArray.getColor(R.styleable.ThermometerView_minScaleLineColor, Color.parseColor("#A9A9A9"));
         scaleLineWidth = typedArray.getFloat(R.styleable.ThermometerView_scaleLineWidth, 1.5f);
@@ -175,11 +260,56 @@ public class ThermometerView extends View {
         maxScaleValue = typedArray.getFloat(R.styleable.ThermometerView_maxScaleValue, 42f);
         minScaleValue = typedArray.getFloat(R.styleable.ThermometerView_minScaleValue, 35f);
         curScaleValue = typedArray.getFloat(R.styleable.ThermometerView_curScaleValue, 35f);
+        minScaleSpacing = typedArray.getFloat(R.styleable.ThermometerView_minScaleSpacing, 4f);
+        mercuryColorThresholds = getFloatArray(typedArray, R.styleable.ThermometerView_mercuryColorThresholds,
+                DEFAULT_MERCURY_COLOR_THRESHOLDS);
+        leftMercuryColors = getColorArray(typedArray, R.styleable.ThermometerView_leftMercuryColors,
+                DEFAULT_LEFT_MERCURY_COLORS);
+        rightMercuryColors = getColorArray(typedArray, R.styleable.ThermometerView_rightMercuryColors,
+                DEFAULT_RIGHT_MERCURY_COLORS);
+        mercuryColorGradient = typedArray.getBoolean(R.styleable.ThermometerView_mercuryColorGradient, false);
+        mercuryWaveEnabled = typedArray.getBoolean(R.styleable.ThermometerView_mercuryWaveEnabled, false);
+        mercuryWaveAmplitude = typedArray.getFloat(R.styleable.ThermometerView_mercuryWaveAmplitude, 6f);
+        mercuryWaveLength = typedArray.getFloat(R.styleable.ThermometerView_mercuryWaveLength, 80f);
         typedArray.recycle();
 
         initConfig();
     }
 
+    /**
+     * Read an array attribute that references an {@code <array>} of floats
+     */
+    private float[] getFloatArray(TypedArray typedArray, int index, float[] defValue) {
+        final int id = typedArray.getResourceId(index, 0);
+        if (id == 0) {
+            return defValue;
+        }
+        TypedArray array = getResources().obtainTypedArray(id);
+        float[] values = new float[array.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.getFloat(i, 0f);
+        }
+        array.recycle();
+        return values;
+    }
+
+    /**
+     * Read an array attribute that references an {@code <array>} of colors
+     */
+    private int[] getColorArray(TypedArray typedArray, int index, int[] defValue) {
+        final int id = typedArray.getResourceId(index, 0);
+        if (id == 0) {
+            return defValue;
+        }
+        TypedArray array = getResources().obtainTypedArray(id);
+        int[] values = new int[array.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.getColor(i, Color.TRANSPARENT);
+        }
+        array.recycle();
+        return values;
+    }
+
     public void initConfig() {
         if (minThermometerRadius >= maxThermometerRadius) {
             throw new UnsupportedOperationException("The thermometer shape is set incorrectly.");
@@ -192,6 +322,11 @@ public class ThermometerView extends View {
         }
         setResetCurValue(curScaleValue);
 
+        leftMercuryLut = new MercuryColorLut(minScaleValue, maxScaleValue,
+                mercuryColorThresholds, leftMercuryColors, mercuryColorGradient);
+        rightMercuryLut = new MercuryColorLut(minScaleValue, maxScaleValue,
+                mercuryColorThresholds, rightMercuryColors, mercuryColorGradient);
+
         sumScaleValue = (maxScaleValue - minScaleValue) * 10;
 
         mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
@@ -205,13 +340,17 @@ public class ThermometerView extends View {
         mPaint.setAntiAlias(true);
         mPaint.setStyle(Paint.Style.FILL);
 
+        mHistoryPaint.setStrokeWidth(3f);
+        mHistoryPaint.setStrokeCap(Paint.Cap.ROUND);
+        mHistoryPaint.setColor(historyLineColor);
+
         String title = "℃";
         mTextPaint.setTextSize(unitTextSize);
         textWidth = Layout.getDesiredWidth(title, mTextPaint);
         Paint.FontMetricsInt fmi = mTextPaint.getFontMetricsInt();
         titleHeight = -(float) (fmi.bottom + fmi.top);
 
-        this.setLayerType(View.LAYER_TYPE_SOFTWARE, null); // Turn off hardware acceleration, otherwise the shadow will be invalid
+        recycleScaleLayer();
     }
 
     @Override
@@ -230,6 +369,13 @@ public class ThermometerView extends View {
         float mercuryHeight = mHeight - titleHeight - mPaddingTop - mPaddingBottom - minThermometerRadius - 2 * maxThermometerRadius;
 
         scaleSpaceHeight = mercuryHeight / sumScaleValue;
+        mScaleModel = new ThermometerScaleModel(mPaddingTop + titleHeight + minThermometerRadius, scaleSpaceHeight,
+                maxScaleValue, (int) Math.floor(sumScaleValue), minScaleSpacing, scaleTextSize * 1.5f);
+
+        mTextPaint.setTextSize(scaleTextSize);
+        historyLeft = mWidth / 2 + minThermometerRadius + 2 * spaceScaleWidth + maxLineWidth
+                + Layout.getDesiredWidth(String.format("%.0f", maxScaleValue), mTextPaint) + spaceScaleWidth;
+        historyRight = mWidth - getPaddingRight();
 
         thermometerTopX = thermometerBottomX = mWidth / 2;
         thermometerTopY = mPaddingTop + titleHeight + minThermometerRadius;
@@ -241,6 +387,9 @@ public class ThermometerView extends View {
         thermometerRectF.right = mWidth / 2 + minThermometerRadius;
         thermometerRectF.bottom = mHeight - mPaddingBottom - maxThermometerRadius;
 
+        mShadow.setShape(thermometerTopX, thermometerTopY, minThermometerRadius,
+                thermometerBottomY, maxThermometerRadius, thermometerRectF);
+
         mercuryRectF = new RectF();
         mercuryRectF.left = mWidth / 2 - minMercuryRadius;
         mercuryRectF.top = mPaddingTop + titleHeight + minThermometerRadius;
@@ -260,9 +409,13 @@ public class ThermometerView extends View {
 
         waveBottom = mHeight - mPaddingBottom - (maxThermometerRadius - maxMercuryRadius);
 
-        // Create a Bitmap yourself
-        bitmap = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
-        bitmapCanvas = new Canvas(bitmap);
+        // Top cap, tube and bottom bulb of the mercury: a clip instead of a full-view offscreen bitmap
+        mercuryPath.reset();
+        mercuryPath.addCircle(mWidth / 2, mercuryTop, minMercuryRadius, Path.Direction.CW);
+        mercuryPath.addRect(leftMercuryLeft, mercuryTop, rightMercuryRight, mercuryBottom, Path.Direction.CW);
+        mercuryPath.addCircle(thermometerBottomX, thermometerBottomY, maxMercuryRadius, Path.Direction.CW);
+
+        recycleScaleLayer();
     }
 
     @Override
@@ -272,21 +425,96 @@ public class ThermometerView extends View {
             return;
         }
 
-        if (isHmInitialized) {
-            isHmInitialized = false;
+        if (mScaleLayer == null) {
+            mScaleLayer = ThermometerScaleLayer.obtain(getScaleLayerConfig());
+        }
+        mScaleLayer.draw(canvas, getWidth(), getHeight(), mScaleLayerRenderer);
+
+        drawWaveShape(mPaint, canvas);
+
+        drawHistory(canvas);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        updateWaveRunning();
+        if (mValueSource != null) {
+            if (!mValueSource.bindReceiver(mValueReceiver)) {
+                // Another view was bound to the source while this one was detached: the source is that view's now
+                mValueSource = null;
+            } else if (mValueSource.hasFreshValue()) {
+                postOnAnimation(mTakeValueRunnable);
+            }
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // isAttachedToWindow() is still true during this call
+        mAttached = false;
+        if (mValueSource != null) {
+            // The source does not keep a detached view alive; the binding resumes when it is attached again
+            mValueSource.unbindReceiver(mValueReceiver);
         }
+        mValueAnimator.cancel();
+        updateWaveRunning();
+        recycleScaleLayer();
+        mShadow.release();
+    }
 
-        canvas.drawColor(viewBg);
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateWaveRunning();
+    }
 
-        drawScaleTitleText(canvas);
-        drawScaleText(canvas);
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateWaveRunning();
+    }
 
-        drawShapeBg(mPaint, canvas);
-        drawShape(mPaint, bitmapCanvas);
-        drawWaveShape(mPaint, bitmapCanvas);
+    /**
+     * The wave only runs while it can be seen: attached, shown, and in a visible window
+     */
+    private void updateWaveRunning() {
+        if (mercuryWaveEnabled && mAttached && isShown() && getWindowVisibility() == VISIBLE) {
+            if (mWave == null) {
+                mWave = new MercuryWave(this, mercuryWaveAmplitude, mercuryWaveLength, WAVE_PERIOD_MILLIS);
+            }
+            mWave.start();
+        } else if (mWave != null) {
+            mWave.stop();
+        }
+    }
 
-        canvas.drawBitmap(bitmap, 0, 0, mPaint);
+    private void recycleScaleLayer() {
+        if (mScaleLayer != null) {
+            mScaleLayer.recycle();
+            mScaleLayer = null;
+        }
+    }
 
+    /**
+     * Everything the scale layer depends on: thermometers with equal configs draw the same layer
+     */
+    private int[] getScaleLayerConfig() {
+        return new int[]{
+                getWidth(), getHeight(), getPaddingTop(), getPaddingBottom(),
+                viewBg, unitTextColor, scaleTextColor, maxScaleLineColor, midScaleLineColor, minScaleLineColor,
+                thermometerBg, thermometerShadowBg, leftMercuryBg, rightMercuryBg,
+                Float.floatToIntBits(unitTextSize), Float.floatToIntBits(scaleTextSize),
+                Float.floatToIntBits(scaleLineWidth), Float.floatToIntBits(maxLineWidth),
+                Float.floatToIntBits(midLineWidth), Float.floatToIntBits(minLineWidth),
+                Float.floatToIntBits(spaceScaleWidth),
+                Float.floatToIntBits(maxThermometerRadius), Float.floatToIntBits(minThermometerRadius),
+                Float.floatToIntBits(maxMercuryRadius), Float.floatToIntBits(minMercuryRadius),
+                Float.floatToIntBits(maxScaleValue), Float.floatToIntBits(minScaleValue),
+                Float.floatToIntBits(minScaleSpacing)
+        };
     }
 
     /**
@@ -304,14 +532,17 @@ public class ThermometerView extends View {
      * Draw scale and text
      */
     private void drawScaleText(Canvas canvas) {
+        // Only the ticks that are far enough apart, see ThermometerScaleModel
+        final int tickStep = mScaleModel.getTickStep();
+        final int midStep = mScaleModel.getMidStep();
+        final int majorStep = mScaleModel.getMajorStep();
+
         /* Draw the scale and text on the left */
-        if (hmYAxisTemp == null) {
-            hmYAxisTemp = new TreeMap<>();
-            isHmInitialized = true;
-        }
-        for (int i = 0; i <= sumScaleValue; i++) {
-            if (i % 10 == 0) {
-                double curValue = (maxScaleValue - i / 10) * 1.8 + 32; // Convert Celsius to Fahrenheit
+        for (int i = mScaleModel.firstIndexOf(tickStep); i <= sumScaleValue; i += tickStep) {
+            final float y = mScaleModel.yAt(i);
+            final int tenths = mScaleModel.tenthsAt(i);
+            if (tenths % majorStep == 0) {
+                double curValue = tenths / 10.0 * 1.8 + 32; // Convert Celsius to Fahrenheit
                 String curValueStr = String.format("%.1f", curValue);
 
                 mTextPaint.setColor(scaleTextColor);
@@ -321,40 +552,30 @@ public class ThermometerView extends View {
                 float baselineY = -(float) (fmi.bottom + fmi.top);
                 canvas.drawText(curValueStr,
                         mWidth / 2 - minThermometerRadius - 2 * spaceScaleWidth - maxLineWidth - textWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i + baselineY / 2,
-                        mTextPaint);
+                        y + baselineY / 2, mTextPaint);
 
                 mLinePaint.setColor(maxScaleLineColor); // big line
-                canvas.drawLine(mWidth / 2 - spaceScaleWidth - minThermometerRadius - maxLineWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i,
-                        mWidth / 2 - spaceScaleWidth - minThermometerRadius,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i, mLinePaint);
-            } else if (i % 5 == 0) {
+                canvas.drawLine(mWidth / 2 - spaceScaleWidth - minThermometerRadius - maxLineWidth, y,
+                        mWidth / 2 - spaceScaleWidth - minThermometerRadius, y, mLinePaint);
+            } else if (tenths % midStep == 0) {
                 mLinePaint.setColor(midScaleLineColor); // medium line
 
-                canvas.drawLine(mWidth / 2 - spaceScaleWidth - minThermometerRadius - midLineWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i,
-                        mWidth / 2 - spaceScaleWidth - minThermometerRadius,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i, mLinePaint);
+                canvas.drawLine(mWidth / 2 - spaceScaleWidth - minThermometerRadius - midLineWidth, y,
+                        mWidth / 2 - spaceScaleWidth - minThermometerRadius, y, mLinePaint);
             } else {
                 mLinePaint.setColor(minScaleLineColor); // small gray line
 
-                canvas.drawLine(mWidth / 2 - spaceScaleWidth - minThermometerRadius - minLineWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i,
-                        mWidth / 2 - spaceScaleWidth - minThermometerRadius,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i, mLinePaint);
+                canvas.drawLine(mWidth / 2 - spaceScaleWidth - minThermometerRadius - minLineWidth, y,
+                        mWidth / 2 - spaceScaleWidth - minThermometerRadius, y, mLinePaint);
             }
         }
 
         /* Draw the scale and text on the right */
-        for (int i = 0; i <= sumScaleValue; i++) {
-            if (isHmInitialized) {
-                hmYAxisTemp.put(mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i,
-                        (float) (maxScaleValue - i * 0.1));
-            }
-
-            if (i % 10 == 0) {
-                float curValue = maxScaleValue - i / 10;
+        for (int i = mScaleModel.firstIndexOf(tickStep); i <= sumScaleValue; i += tickStep) {
+            final float y = mScaleModel.yAt(i);
+            final int tenths = mScaleModel.tenthsAt(i);
+            if (tenths % majorStep == 0) {
+                float curValue = tenths / 10f;
                 String curValueStr = String.format("%.0f", curValue);
 
                 mTextPaint.setColor(scaleTextColor);
@@ -363,28 +584,21 @@ public class ThermometerView extends View {
                 float baselineY = -(float) (fmi.bottom + fmi.top);
                 canvas.drawText(curValueStr,
                         mWidth / 2 + minThermometerRadius + 2 * spaceScaleWidth + maxLineWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i + baselineY / 2,
-                        mTextPaint);
+                        y + baselineY / 2, mTextPaint);
 
                 mLinePaint.setColor(maxScaleLineColor);
-                canvas.drawLine(mWidth / 2 + spaceScaleWidth + minThermometerRadius,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i,
-                        mWidth / 2 + spaceScaleWidth + minThermometerRadius + maxLineWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i, mLinePaint);
-            } else if (i % 5 == 0) {
+                canvas.drawLine(mWidth / 2 + spaceScaleWidth + minThermometerRadius, y,
+                        mWidth / 2 + spaceScaleWidth + minThermometerRadius + maxLineWidth, y, mLinePaint);
+            } else if (tenths % midStep == 0) {
                 mLinePaint.setColor(midScaleLineColor);
 
-                canvas.drawLine(mWidth / 2 + spaceScaleWidth + minThermometerRadius,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i,
-                        mWidth / 2 + spaceScaleWidth + minThermometerRadius + midLineWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i, mLinePaint);
+                canvas.drawLine(mWidth / 2 + spaceScaleWidth + minThermometerRadius, y,
+                        mWidth / 2 + spaceScaleWidth + minThermometerRadius + midLineWidth, y, mLinePaint);
             } else {
                 mLinePaint.setColor(minScaleLineColor);
 
-                canvas.drawLine(mWidth / 2 + spaceScaleWidth + minThermometerRadius,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i,
-                        mWidth / 2 + spaceScaleWidth + minThermometerRadius + minLineWidth,
-                        mPaddingTop + titleHeight + minThermometerRadius + scaleSpaceHeight * i, mLinePaint);
+                canvas.drawLine(mWidth / 2 + spaceScaleWidth + minThermometerRadius, y,
+                        mWidth / 2 + spaceScaleWidth + minThermometerRadius + minLineWidth, y, mLinePaint);
             }
         }
     }
@@ -396,17 +610,13 @@ public class ThermometerView extends View {
      * @param canvas     Canvas
      */
     private void drawShapeBg(Paint shapePaint, Canvas canvas) {
-        shapePaint.setColor(thermometerBg);
-        shapePaint.setShadowLayer(8, 0, 0, thermometerShadowBg);
+        // Pre-rendered blur instead of setShadowLayer, so the view does not need a software layer
+        mShadow.draw(canvas, thermometerShadowBg);
 
+        shapePaint.setColor(thermometerBg);
         canvas.drawCircle(thermometerTopX, thermometerTopY, minThermometerRadius, shapePaint);
         canvas.drawCircle(thermometerBottomX, thermometerBottomY, maxThermometerRadius, shapePaint);
         canvas.drawRect(thermometerRectF, shapePaint);
-
-        /* The following three sentences are to remove some unwanted shadows */
-        shapePaint.clearShadowLayer();
-        canvas.drawCircle(thermometerTopX, thermometerTopY, minThermometerRadius, shapePaint);
-        canvas.drawCircle(thermometerBottomX, thermometerBottomY, maxThermometerRadius, shapePaint);
     }
 
     /**
@@ -441,19 +651,65 @@ public class ThermometerView extends View {
      * @param canvas     Canvas
      */
     private void drawWaveShape(Paint shapePaint, Canvas canvas) {
-        float waveTop = mPaddingTop + titleHeight + minThermometerRadius
-                + (maxScaleValue - curScaleValue) * 10 * scaleSpaceHeight;
+        float waveTop = mScaleModel.yOf(curScaleValue);
+
+        canvas.save();
+        canvas.clipPath(mercuryPath);
+
+        if (mercuryWaveEnabled && mWave != null) {
+            // One wavy outline across both halves, each half clipped to its own color
+            final Path wavePath = mWave.getPath(leftWaveLeft, waveTop, rightWaveRight, waveBottom);
+
+            shapePaint.setColor(leftMercuryColor);
+            canvas.save();
+            canvas.clipRect(leftWaveLeft, 0, leftWaveRight, waveBottom);
+            canvas.drawPath(wavePath, shapePaint);
+            canvas.restore();
+
+            shapePaint.setColor(rightMercuryColor);
+            canvas.save();
+            canvas.clipRect(rightWaveLeft, 0, rightWaveRight, waveBottom);
+            canvas.drawPath(wavePath, shapePaint);
+            canvas.restore();
+        } else {
+            shapePaint.setColor(leftMercuryColor);
+            canvas.drawRect(leftWaveLeft, waveTop, leftWaveRight, waveBottom, shapePaint);
 
-        shapePaint.setColor(leftMercuryColor);
-        shapePaint.clearShadowLayer();
-        mPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
+            shapePaint.setColor(rightMercuryColor);
+            canvas.drawRect(rightWaveLeft, waveTop, rightWaveRight, waveBottom, shapePaint);
+        }
 
-        canvas.drawRect(leftWaveLeft, waveTop, leftWaveRight, waveBottom, shapePaint);
+        canvas.restore();
+    }
 
-        shapePaint.setColor(rightMercuryColor);
-        shapePaint.clearShadowLayer();
+    /**
+     * Draw the last readings as a line right of the Celsius scale, on the same vertical scale
+     * The newest reading is at the right edge, all segments are drawn with one drawLines call
+     */
+    private void drawHistory(Canvas canvas) {
+        if (mHistory == null || mHistory.size() < 2 || historyRight - historyLeft <= 0) {
+            return;
+        }
+        final int size = mHistory.size();
+        final float stepX = (historyRight - historyLeft) / (mHistory.capacity() - 1);
+        float x = historyRight - (size - 1) * stepX;
+        float y = historyY(mHistory.get(0));
+        int count = 0;
+        for (int i = 1; i < size; i++) {
+            final float nextX = x + stepX;
+            final float nextY = historyY(mHistory.get(i));
+            mHistoryPoints[count++] = x;
+            mHistoryPoints[count++] = y;
+            mHistoryPoints[count++] = nextX;
+            mHistoryPoints[count++] = nextY;
+            x = nextX;
+            y = nextY;
+        }
+        canvas.drawLines(mHistoryPoints, 0, count, mHistoryPaint);
+    }
 
-        canvas.drawRect(rightWaveLeft, waveTop, rightWaveRight, waveBottom, shapePaint);
+    private float historyY(float value) {
+        return mScaleModel.yOf(Math.min(Math.max(value, minScaleValue), maxScaleValue));
     }
 
     /**
@@ -463,8 +719,9 @@ public class ThermometerView extends View {
      */
 
     private static final String TAG = "ThermometerView";
-    TreeMap<Float, Float> hmYAxisTemp;
-    boolean isHmInitialized;
+    private static final int DEFAULT_HISTORY_CAPACITY = 100;
+    private static final float SMOOTHING_PRECISION = 0.001f;
+    private ThermometerScaleModel mScaleModel; // y <-> temperature, computed in onSizeChanged
 
     @Override
     public boolean onTouchEvent(MotionEvent ev) {
@@ -475,7 +732,6 @@ public class ThermometerView extends View {
             }
 
             case MotionEvent.ACTION_MOVE: {
-                Log.d(TAG, "onTouchEvent: ACTION_MOVE");
                 final float x = ev.getX();
                 final float y = ev.getY();
                 updateThermometer(x, y);
@@ -505,32 +761,14 @@ public class ThermometerView extends View {
     }
 
     private void updateThermometer(float x, float y) {
+        if (mScaleModel == null) {
+            return;
+        }
         if ((x >= mercuryRectF.left && x <= mercuryRectF.right)
                 && ((y >= mercuryRectF.top && y <= mercuryRectF.bottom)
                 || (y >= thermometerRectF.top && y <= thermometerRectF.bottom))) {
-            Log.d(TAG, "onTouchEvent: ACTION_UP x:" + x + " <> y:" + y);
-            if (hmYAxisTemp != null) {
-                if (hmYAxisTemp.containsKey(y)) {
-                    setCelsiusMark(hmYAxisTemp.get(y));
-                } else {
-                    // get the closed number
-                    List<Float> keys = new ArrayList<>(hmYAxisTemp.keySet());
-                    float distance = Math.abs(keys.get(0) - y);
-                    int index = 0;
-                    for (int c = 1; c < keys.size(); c++) {
-                        float cdistance = Math.abs(keys.get(c) - y);
-                        if (cdistance < distance) {
-                            index = c;
-                            distance = cdistance;
-                        }
-                    }
-                    float newY = keys.get(index);
-                    // thermometerDragListener.onValueUpdated(hmYAxisTemp.get(newY));
-                    setCelsiusMark(hmYAxisTemp.get(newY));
-                    Log.d(TAG, "onTouchEvent: newY: " + newY + " <> hashmap: " + hmYAxisTemp.toString());
-                }
-            }
-
+            // Nearest 0.1℃ tick
+            setCelsiusMark(mScaleModel.snapToTenth(y));
         }
     }
 
@@ -542,6 +780,7 @@ public class ThermometerView extends View {
 
     // call this method on touch release.
     public void setCelsiusMark(float curValue) {
+        mValueAnimator.cancel();
         setResetCurValue(curValue);
         changeMercuryColor(curValue);
         invalidate();
@@ -551,6 +790,109 @@ public class ThermometerView extends View {
     }
 
 
+    /**
+     * Append a reading to the history drawn next to the thermometer; once full, the oldest reading is dropped
+     *
+     * @param value reading, unit: ℃
+     */
+    public void appendReading(float value) {
+        if (mHistory == null) {
+            mHistory = new FloatRingBuffer(mHistoryCapacity);
+            mHistoryPoints = new float[Math.max(0, mHistoryCapacity - 1) * 4];
+        }
+        mHistory.append(value);
+        invalidate();
+    }
+
+    /**
+     * Number of readings kept in the history (default 100), the current history is cleared
+     */
+    public void setHistoryCapacity(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException(String.format("The history capacity of %d is invalid, at least 2", capacity));
+        }
+        this.mHistoryCapacity = capacity;
+        mHistory = null;
+        mHistoryPoints = null;
+        invalidate();
+    }
+
+    public void clearHistory() {
+        if (mHistory != null) {
+            mHistory.clear();
+        }
+        invalidate();
+    }
+
+    public void setHistoryLineColor(int color) {
+        this.historyLineColor = color;
+        mHistoryPaint.setColor(color);
+        invalidate();
+    }
+
+    /**
+     * Show the readings of a live source: the readings can be published from any thread and at any rate,
+     * the view takes the latest one at most once per frame
+     *
+     * A source feeds one view at a time; a view that is detached releases its source to the next view bound to it
+     *
+     * @param source readings, null unbinds
+     * @throws IllegalStateException if the source is bound to another view
+     */
+    public void bindValueSource(@Nullable ValueSource source) {
+        if (source != null && source == mValueSource) {
+            return;
+        }
+        if (source != null && !source.bindReceiver(mValueReceiver)) {
+            throw new IllegalStateException("The value source is already bound to another view");
+        }
+        unbindValueSource();
+        if (source == null) {
+            return;
+        }
+        mValueSource = source;
+        mHasSmoothedValue = false;
+        if (source.hasFreshValue()) {
+            postOnAnimation(mTakeValueRunnable);
+        }
+    }
+
+    public void unbindValueSource() {
+        if (mValueSource != null) {
+            mValueSource.unbindReceiver(mValueReceiver);
+            mValueSource = null;
+        }
+        removeCallbacks(mTakeValueRunnable);
+    }
+
+    /**
+     * Exponential smoothing of the bound source readings: shown = smoothing * shown + (1 - smoothing) * reading
+     *
+     * @param smoothing weight of the shown value in [0, 1), 0 shows the readings as they are
+     */
+    public void setValueSmoothing(float smoothing) {
+        if (smoothing < 0 || smoothing >= 1) {
+            throw new IllegalArgumentException(String.format("The smoothing of %f is out of range: [0, 1)", smoothing));
+        }
+        this.mValueSmoothing = smoothing;
+    }
+
+    private void takeSourceValue() {
+        final float reading = mValueSource.take();
+        float value = reading;
+        if (mValueSmoothing > 0) {
+            value = mHasSmoothedValue ? mValueSmoothing * mSmoothedValue + (1 - mValueSmoothing) * reading : reading;
+            mSmoothedValue = value;
+            mHasSmoothedValue = true;
+            if (Math.abs(value - reading) > SMOOTHING_PRECISION && !mValueSource.hasFreshValue()) {
+                // Keep converging on the following frames, even if no new reading arrives
+                // (a new reading schedules the next frame itself)
+                postOnAnimation(mTakeValueRunnable);
+            }
+        }
+        setCelsiusMark(value);
+    }
+
     public float getCurValue() {
 
         return this.curScaleValue;
@@ -562,6 +904,7 @@ public class ThermometerView extends View {
      * @param curFValue Current temperature value float(℉)
      */
     public void setFahrenheitMark(float curFValue) {
+        mValueAnimator.cancel();
 
         String curValueStr = String.format("%.0f", (curFValue - 32) / 1.8);
         setResetCurValue(Float.valueOf(curValueStr));
@@ -585,7 +928,7 @@ public class ThermometerView extends View {
     }
 
     /**
-     * Set the temperature value and start the animation (Interpolator: LinearInterpolator)
+     * Set the temperature value and start the animation; a running animation is retargeted
      *
      * @param newFValue New temperature value float(℉)
      */
@@ -595,7 +938,7 @@ public class ThermometerView extends View {
     }
 
     /**
-     * Set the temperature value and start the animation (Interpolator: LinearInterpolator)
+     * Set the temperature value and start the animation; a running animation is retargeted
      *
      * @param newValue New temperature value float(℃)
      */
@@ -607,32 +950,64 @@ public class ThermometerView extends View {
             newValue = maxScaleValue;
         }
 
-        @SuppressLint("ObjectAnimatorBinding")
-        ObjectAnimator waveShiftAnim = ObjectAnimator.ofFloat(this,
-                "curValue", curScaleValue, newValue);
-        waveShiftAnim.setRepeatCount(0);
-        waveShiftAnim.setDuration(500);
-        waveShiftAnim.setInterpolator(new LinearInterpolator());
-        waveShiftAnim.start();
+        mValueAnimator.animateTo(curScaleValue, newValue);
+    }
+
+    /**
+     * Duration of the value animation
+     *
+     * @param durationMillis duration, unit: ms (default 500)
+     */
+    public void setAnimDuration(long durationMillis) {
+        mValueAnimator.setDuration(durationMillis);
+    }
+
+    /**
+     * Animate the value with a damped spring instead of a fixed-duration curve
+     *
+     * @param stiffness    spring stiffness, 0 restores the fixed-duration curve
+     * @param dampingRatio 1 stops without overshoot, below 1 overshoots
+     */
+    public void setAnimSpring(float stiffness, float dampingRatio) {
+        mValueAnimator.setSpring(stiffness, dampingRatio);
+    }
+
+    /**
+     * Animate a wave on the mercury surface; it only runs while the view is attached and shown
+     */
+    public void setMercuryWaveEnabled(boolean enabled) {
+        this.mercuryWaveEnabled = enabled;
+        updateWaveRunning();
+        invalidate();
+    }
+
+    /**
+     * Animated wave on the mercury surface, enabled like {@link ThermometerBuilder#setMercuryWave(float, float)}
+     *
+     * @param amplitude  height of a crest above the mercury level
+     * @param waveLength distance between two crests
+     */
+    public void setMercuryWave(float amplitude, float waveLength) {
+        if (mWave == null) {
+            mWave = new MercuryWave(this, amplitude, waveLength, WAVE_PERIOD_MILLIS);
+        } else {
+            mWave.setShape(amplitude, waveLength, WAVE_PERIOD_MILLIS);
+        }
+        this.mercuryWaveAmplitude = amplitude;
+        this.mercuryWaveLength = waveLength;
+        setMercuryWaveEnabled(true);
     }
 
     /*
-    * Change mercury color based on value range
+    * Change mercury color based on value range, see mercuryColorThresholds
+    * By default:
     * value between 35 to 37 = Green Color
     * value between 37 to 39 = Orange Color
     * value between 39 to 42 = Red Color
     * */
     private void changeMercuryColor(float value) {
-        if (value <= 37.0 && value >= 35.0) {
-            leftMercuryColor = Color.parseColor("#B2FF59");
-            rightMercuryColor = Color.parseColor("#76FF03");
-        } else if (value <= 39.0 && value > 37.0) {
-            leftMercuryColor = Color.parseColor("#FFAB40");
-            rightMercuryColor = Color.parseColor("#FF9100");
-        } else {
-            leftMercuryColor = Color.parseColor("#FF5252");
-            rightMercuryColor = Color.parseColor("#F44336");
-        }
+        leftMercuryColor = leftMercuryLut.getColor(value);
+        rightMercuryColor = rightMercuryLut.getColor(value);
     }
 
     /**
@@ -667,6 +1042,14 @@ public class ThermometerView extends View {
         private float maxScaleValue = 42f; // Thermometer maximum
         private float minScaleValue = 35f; // Thermometer minimum
         private float curScaleValue = 35f; // Current scale value
+        private float minScaleSpacing = 4f; // Minimum distance between two drawn ticks
+        private float[] mercuryColorThresholds = DEFAULT_MERCURY_COLOR_THRESHOLDS; // Mercury color thresholds or stops
+        private int[] leftMercuryColors = DEFAULT_LEFT_MERCURY_COLORS; // Mercury colors on the left
+        private int[] rightMercuryColors = DEFAULT_RIGHT_MERCURY_COLORS; // Mercury colors on the right
+        private boolean mercuryColorGradient = false; // Mercury colors as a gradient instead of bands
+        private boolean mercuryWaveEnabled = false; // Animate a wave on the mercury surface
+        private float mercuryWaveAmplitude = 6f; // Height of a wave crest above the mercury level
+        private float mercuryWaveLength = 80f; // Distance between two wave crests
 
         public ThermometerBuilder(Context context) {
             this.context = context;
@@ -802,6 +1185,47 @@ public class ThermometerView extends View {
             return this;
         }
 
+        public ThermometerBuilder setMinScaleSpacing(float minScaleSpacing) {
+            this.minScaleSpacing = minScaleSpacing;
+            return this;
+        }
+
+        /**
+         * Mercury color bands: thresholds.length + 1 colors per side,
+         * band k covers the values in (thresholds[k - 1], thresholds[k]]
+         */
+        public ThermometerBuilder setMercuryColorBands(float[] thresholds, int[] leftColors, int[] rightColors) {
+            this.mercuryColorThresholds = thresholds;
+            this.leftMercuryColors = leftColors;
+            this.rightMercuryColors = rightColors;
+            this.mercuryColorGradient = false;
+            return this;
+        }
+
+        /**
+         * Mercury color gradient: one color per stop and side, interpolated between the stops
+         */
+        public ThermometerBuilder setMercuryColorGradient(float[] stops, int[] leftColors, int[] rightColors) {
+            this.mercuryColorThresholds = stops;
+            this.leftMercuryColors = leftColors;
+            this.rightMercuryColors = rightColors;
+            this.mercuryColorGradient = true;
+            return this;
+        }
+
+        /**
+         * Animated wave on the mercury surface
+         *
+         * @param amplitude  height of a crest above the mercury level
+         * @param waveLength distance between two crests
+         */
+        public ThermometerBuilder setMercuryWave(float amplitude, float waveLength) {
+            this.mercuryWaveEnabled = true;
+            this.mercuryWaveAmplitude = amplitude;
+            this.mercuryWaveLength = waveLength;
+            return this;
+        }
+
         public ThermometerView builder() {
             return new ThermometerView(context, this);
         }
@@ -1,20 +1,16 @@
 package com.myairmed.widget;
 
-import android.animation.ObjectAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
+import android.graphics.Path;
 import android.graphics.RectF;
 import android.text.Layout;
 import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.view.View;
-import android.view.animation.LinearInterpolator;
 
 import androidx.annotation.Nullable;
 
@@ -79,8 +75,25 @@ public class ThermometerViewDefault extends View {
     private Paint mLinePaint;
 
     private Paint mPaint;
-    private Bitmap bitmap;
-    private Canvas bitmapCanvas;
+    private final Path mercuryPath = new Path(); // Outline of the mercury, the mercury height is clipped to it
+
+    // One animator per view, retargeted when a new value arrives during an animation
+    private final RetargetingAnimator mValueAnimator = new RetargetingAnimator(new RetargetingAnimator.Listener() {
+        @Override
+        public void onValueUpdate(float value) {
+            setResetCurValue(value);
+            invalidate();
+        }
+
+        @Override
+        public void onValueSettled(float value) {
+            setResetCurValue(value);
+            invalidate();
+        }
+    }, 0.001f);
+
+    private static final float SHADOW_RADIUS = 8f;
+    private final ThermometerShadow mShadow = new ThermometerShadow(SHADOW_RADIUS);
 
     public ThermometerViewDefault(Context context) {
         super(context);
@@ -192,8 +205,6 @@ public class ThermometerViewDefault extends View {
         textWidth = Layout.getDesiredWidth(title, mTextPaint);
         Paint.FontMetricsInt fmi = mTextPaint.getFontMetricsInt();
         titleHeight = -(float) (fmi.bottom + fmi.top);
-
-        this.setLayerType(View.LAYER_TYPE_SOFTWARE, null); // Turn off hardware acceleration, otherwise the shadow will be invalid
     }
 
     @Override
@@ -223,6 +234,9 @@ public class ThermometerViewDefault extends View {
         thermometerRectF.right = mWidth / 2 + minThermometerRadius;
         thermometerRectF.bottom = mHeight - mPaddingBottom - maxThermometerRadius;
 
+        mShadow.setShape(thermometerTopX, thermometerTopY, minThermometerRadius,
+                thermometerBottomY, maxThermometerRadius, thermometerRectF);
+
         mercuryRectF = new RectF();
         mercuryRectF.left = mWidth / 2 - minMercuryRadius;
         mercuryRectF.top = mPaddingTop + titleHeight + minThermometerRadius;
@@ -242,9 +256,11 @@ public class ThermometerViewDefault extends View {
 
         waveBottom = mHeight - mPaddingBottom - (maxThermometerRadius - maxMercuryRadius);
 
-        // Create a Bitmap yourself
-        bitmap = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
-        bitmapCanvas = new Canvas(bitmap);
+        // Top cap, tube and bottom bulb of the mercury: a clip instead of a full-view offscreen bitmap
+        mercuryPath.reset();
+        mercuryPath.addCircle(mWidth / 2, mercuryTop, minMercuryRadius, Path.Direction.CW);
+        mercuryPath.addRect(leftMercuryLeft, mercuryTop, rightMercuryRight, mercuryBottom, Path.Direction.CW);
+        mercuryPath.addCircle(thermometerBottomX, thermometerBottomY, maxMercuryRadius, Path.Direction.CW);
     }
 
     @Override
@@ -260,10 +276,15 @@ public class ThermometerViewDefault extends View {
         drawScaleText(canvas);
 
         drawShapeBg(mPaint, canvas);
-        drawShape(mPaint, bitmapCanvas);
-        drawWaveShape(mPaint, bitmapCanvas);
+        drawShape(mPaint, canvas);
+        drawWaveShape(mPaint, canvas);
+    }
 
-        canvas.drawBitmap(bitmap, 0, 0, mPaint);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mValueAnimator.cancel();
+        mShadow.release();
     }
 
     /**
@@ -363,17 +384,13 @@ public class ThermometerViewDefault extends View {
      * @param canvas     Canvas
      */
     private void drawShapeBg(Paint shapePaint, Canvas canvas) {
-        shapePaint.setColor(thermometerBg);
-        shapePaint.setShadowLayer(8, 0, 0, thermometerShadowBg);
+        // Pre-rendered blur instead of setShadowLayer, so the view does not need a software layer
+        mShadow.draw(canvas, thermometerShadowBg);
 
+        shapePaint.setColor(thermometerBg);
         canvas.drawCircle(thermometerTopX, thermometerTopY, minThermometerRadius, shapePaint);
         canvas.drawCircle(thermometerBottomX, thermometerBottomY, maxThermometerRadius, shapePaint);
         canvas.drawRect(thermometerRectF, shapePaint);
-
-        /* The following three sentences are to remove some unwanted shadows */
-        shapePaint.clearShadowLayer();
-        canvas.drawCircle(thermometerTopX, thermometerTopY, minThermometerRadius, shapePaint);
-        canvas.drawCircle(thermometerBottomX, thermometerBottomY, maxThermometerRadius, shapePaint);
     }
 
     /**
@@ -411,16 +428,16 @@ public class ThermometerViewDefault extends View {
         float waveTop = mPaddingTop + titleHeight + minThermometerRadius
                 + (maxScaleValue - curScaleValue) * 10 * scaleSpaceHeight;
 
-        shapePaint.setColor(leftMercuryColor);
-        shapePaint.clearShadowLayer();
-        mPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_ATOP));
+        canvas.save();
+        canvas.clipPath(mercuryPath);
 
+        shapePaint.setColor(leftMercuryColor);
         canvas.drawRect(leftWaveLeft, waveTop, leftWaveRight, waveBottom, shapePaint);
 
         shapePaint.setColor(rightMercuryColor);
-        shapePaint.clearShadowLayer();
-
         canvas.drawRect(rightWaveLeft, waveTop, rightWaveRight, waveBottom, shapePaint);
+
+        canvas.restore();
     }
 
     /**
@@ -429,6 +446,7 @@ public class ThermometerViewDefault extends View {
      * @param curValue The current temperature value float(℃)
      */
     public void setCurValue(float curValue) {
+        mValueAnimator.cancel();
         setResetCurValue(curValue);
         invalidate();
     }
@@ -444,6 +462,7 @@ public class ThermometerViewDefault extends View {
      * @param curFValue current temperature value float(℉)
      */
     public void setCurFValue(float curFValue) {
+        mValueAnimator.cancel();
         String curValueStr = String.format("%.0f", (curFValue - 32) / 1.8);
         setResetCurValue(Float.valueOf(curValueStr));
         invalidate();
@@ -465,7 +484,7 @@ public class ThermometerViewDefault extends View {
     }
 
     /**
-     * Set the temperature value and start the animation (Interpolator: LinearInterpolator)
+     * Set the temperature value and start the animation; a running animation is retargeted
      *
      * @param newFValue new temperature value float(℉)
      */
@@ -475,7 +494,7 @@ public class ThermometerViewDefault extends View {
     }
 
     /**
-     * Set the temperature value and start the animation (Interpolator: LinearInterpolator)
+     * Set the temperature value and start the animation; a running animation is retargeted
      *
      * @param newValue new temperature value float(℃)
      */
@@ -487,11 +506,26 @@ public class ThermometerViewDefault extends View {
             newValue = maxScaleValue;
         }
 
-        ObjectAnimator waveShiftAnim = ObjectAnimator.ofFloat(this, "curValue", curScaleValue, newValue);
-        waveShiftAnim.setRepeatCount(0);
-        waveShiftAnim.setDuration(500);
-        waveShiftAnim.setInterpolator(new LinearInterpolator());
-        waveShiftAnim.start();
+        mValueAnimator.animateTo(curScaleValue, newValue);
+    }
+
+    /**
+     * Duration of the value animation
+     *
+     * @param durationMillis duration, unit: ms (default 500)
+     */
+    public void setAnimDuration(long durationMillis) {
+        mValueAnimator.setDuration(durationMillis);
+    }
+
+    /**
+     * Animate the value with a damped spring instead of a fixed-duration curve
+     *
+     * @param stiffness    spring stiffness, 0 restores the fixed-duration curve
+     * @param dampingRatio 1 stops without overshoot, below 1 overshoots
+     */
+    public void setAnimSpring(float stiffness, float dampingRatio) {
+        mValueAnimator.setSpring(stiffness, dampingRatio);
     }
 
     /**
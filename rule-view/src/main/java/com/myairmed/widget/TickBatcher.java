@@ -0,0 +1,101 @@
+package com.myairmed.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+/**
+ * TickBatcher
+ *
+ * Collects the lines of a ruler and draws them with one Canvas.drawLines call per stroke style
+ *
+ * Ideas:
+ *  - Each style (stroke width + color) has its own float[] of points [x0, y0, x1, y1, ...]
+ *  - The buffers only grow, so once they fit the densest frame, adding lines does not allocate
+ *  - Styles are flushed in index order, so a style with a higher index is drawn above the ones before it
+ *  - Lines of colors only known while drawing (e.g. markers) get a style per distinct color with
+ *    {@link #findOrAddStyle(int, float, int)}, the styles grow when a frame has more colors than any before
+ */
+final class TickBatcher {
+
+    private static final int INITIAL_LINES = 64;
+
+    private float[][] mPoints;
+    private int[] mCounts;
+    private float[] mStrokeWidths;
+    private int[] mColors;
+
+    /**
+     * @param styleCount number of stroke styles, styles are numbered from 0
+     */
+    TickBatcher(int styleCount) {
+        mPoints = new float[styleCount][];
+        mCounts = new int[styleCount];
+        mStrokeWidths = new float[styleCount];
+        mColors = new int[styleCount];
+        for (int i = 0; i < styleCount; i++) {
+            mPoints[i] = new float[INITIAL_LINES << 2];
+        }
+    }
+
+    void setStyle(int style, float strokeWidth, int color) {
+        mStrokeWidths[style] = strokeWidth;
+        mColors[style] = color;
+    }
+
+    /**
+     * Style with that stroke among the first styleCount styles, or style styleCount set to it if there is none
+     * @param styleCount number of styles already in use, styles are added after them
+     * @return index of the style, styleCount if it was added
+     */
+    int findOrAddStyle(int styleCount, float strokeWidth, int color) {
+        for (int i = 0; i < styleCount; i++) {
+            if (mColors[i] == color && mStrokeWidths[i] == strokeWidth) {
+                return i;
+            }
+        }
+        if (styleCount == mPoints.length) {
+            final int newLength = Math.max(1, styleCount << 1);
+            mPoints = Arrays.copyOf(mPoints, newLength);
+            mCounts = Arrays.copyOf(mCounts, newLength);
+            mStrokeWidths = Arrays.copyOf(mStrokeWidths, newLength);
+            mColors = Arrays.copyOf(mColors, newLength);
+            for (int i = styleCount; i < newLength; i++) {
+                mPoints[i] = new float[INITIAL_LINES << 2];
+            }
+        }
+        setStyle(styleCount, strokeWidth, color);
+        return styleCount;
+    }
+
+    void addLine(int style, float startX, float startY, float stopX, float stopY) {
+        float[] points = mPoints[style];
+        int count = mCounts[style];
+        if (count + 4 > points.length) {
+            points = Arrays.copyOf(points, points.length << 1);
+            mPoints[style] = points;
+        }
+        points[count] = startX;
+        points[count + 1] = startY;
+        points[count + 2] = stopX;
+        points[count + 3] = stopY;
+        mCounts[style] = count + 4;
+    }
+
+    /**
+     * Draw and clear the collected lines
+     * The stroke width and color of the paint are left at those of the last drawn style
+     */
+    void flush(Canvas canvas, Paint paint) {
+        for (int i = 0; i < mPoints.length; i++) {
+            if (mCounts[i] == 0) {
+                continue;
+            }
+            paint.setStrokeWidth(mStrokeWidths[i]);
+            paint.setColor(mColors[i]);
+            canvas.drawLines(mPoints[i], 0, mCounts[i], paint);
+            mCounts[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.myairmed.widget;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * TimePartFiles
+ *
+ * Binary timeline files for {@link TimeRuleView}
+ *
+ * Format:
+ *  - No header, the file is a sequence of (start time, end time) pairs, unit: s
+ *  - Each value is a little-endian 32-bit int, so a block takes 8 bytes and the block count is length / 8
+ *  - Blocks should be written sorted by start time and without overlaps: such a file is drawn straight
+ *    from the mapping, otherwise {@link TimeRuleView#setTimePartSource(TimePartSource)} has to build a sorted copy
+ *
+ * Ideas:
+ *  - The file is memory-mapped through FileChannel.map and read through an IntBuffer view,
+ *    so opening it neither parses nor copies the blocks into the Java heap
+ */
+public final class TimePartFiles {
+
+    /**
+     * Bytes of one block: start time + end time
+     */
+    public static final int BYTES_PER_PART = 8;
+
+    private static final int WRITE_BUFFER_PARTS = 8192;
+
+    private TimePartFiles() {
+    }
+
+    /**
+     * Memory-map a timeline file
+     * The returned source stays valid after this method returns, the mapping is released with the source
+     * @param file timeline file
+     * @return read-only source backed by the mapping
+     * @throws IOException if the file cannot be read or its length is not a multiple of {@link #BYTES_PER_PART}
+     */
+    public static TimePartSource map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            final long length = channel.size();
+            if (length % BYTES_PER_PART != 0) {
+                throw new IOException(String.format("The length of %s is not a multiple of %d: %d",
+                        file, BYTES_PER_PART, length));
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s is too large to map: %d", file, length));
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            IntBuffer ints = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            return new MappedTimePartSource(ints, (int) (length / BYTES_PER_PART));
+        } finally {
+            // Closing the channel does not unmap the buffer
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Write time blocks in the binary timeline format, replacing the file content
+     * @param file   target file
+     * @param source blocks to write, in the order they should be stored
+     */
+    public static void write(File file, TimePartSource source) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(0);
+            FileChannel channel = randomAccessFile.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_PARTS * BYTES_PER_PART)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0, size = source.size(); i < size; i++) {
+                if (buffer.remaining() < BYTES_PER_PART) {
+                    flush(channel, buffer);
+                }
+                buffer.putInt(source.getStartTime(i));
+                buffer.putInt(source.getEndTime(i));
+            }
+            flush(channel, buffer);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Time blocks read straight from the mapped IntBuffer: [start0, end0, start1, end1, ...]
+     */
+    private static final class MappedTimePartSource implements TimePartSource {
+        private final IntBuffer mBuffer;
+        private final int mSize;
+
+        MappedTimePartSource(IntBuffer buffer, int size) {
+            this.mBuffer = buffer;
+            this.mSize = size;
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        @Override
+        public int getStartTime(int index) {
+            return mBuffer.get(index << 1);
+        }
+
+        @Override
+        public int getEndTime(int index) {
+            return mBuffer.get((index << 1) + 1);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.myairmed.widget;
+
+import java.util.Arrays;
+
+/**
+ * TimePartIndex
+ *
+ * Sorted interval index over the time blocks of {@link TimeRuleView}
+ *
+ * Ideas:
+ *  - The index reads a {@link TimePartSource} whose blocks are sorted by start time and do not overlap,
+ *    so both the start times and the end times are ascending
+ *  - A source that is already in that shape (e.g. a memory-mapped timeline file) is used as is, without copying;
+ *    otherwise the blocks are copied into two parallel int arrays, sorted, and overlapping (or touching) blocks are merged
+ *  - Because the end times are ascending, the first visible block can be found by dichotomy,
+ *    and the draw pass stops at the first block that starts after the right edge
+ */
+final class TimePartIndex {
+
+    /**
+     * Sorted, non overlapping blocks
+     */
+    private final TimePartSource mSource;
+    private final int mSize;
+
+    private TimePartIndex(TimePartSource source) {
+        this.mSource = source;
+        this.mSize = source.size();
+    }
+
+    /**
+     * Build the index on a copy of the blocks
+     * Blocks whose end time is before the start time are ignored
+     */
+    static TimePartIndex build(TimePartSource source) {
+        final int count = source.size();
+        final int[] startTimes = new int[count];
+        final int[] endTimes = new int[count];
+        int size = 0;
+        if (isSortedByStartTime(source)) {
+            // Recordings are usually appended in time order: merge directly, no sorting needed
+            for (int i = 0; i < count; i++) {
+                size = append(startTimes, endTimes, size, source.getStartTime(i), source.getEndTime(i));
+            }
+        } else {
+            // Sort start and end together: start in the high 32 bits, end in the low 32 bits
+            final long[] packed = new long[count];
+            for (int i = 0; i < count; i++) {
+                packed[i] = ((long) source.getStartTime(i) << 32) | (source.getEndTime(i) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed);
+            for (int i = 0; i < count; i++) {
+                size = append(startTimes, endTimes, size, (int) (packed[i] >> 32), (int) packed[i]);
+            }
+        }
+        return new TimePartIndex(new ArraySource(startTimes, endTimes, size));
+    }
+
+    /**
+     * Index over arrays that are already sorted and merged, e.g. a level of {@link TimePartPyramid}
+     */
+    static TimePartIndex of(int[] startTimes, int[] endTimes, int size) {
+        return new TimePartIndex(new ArraySource(startTimes, endTimes, size));
+    }
+
+    /**
+     * Build the index directly on the source if it is already sorted and free of overlaps,
+     * otherwise fall back to {@link #build(TimePartSource)}
+     * The source must not change while the index is in use
+     */
+    static TimePartIndex wrap(TimePartSource source) {
+        return isNormalized(source) ? new TimePartIndex(source) : build(source);
+    }
+
+    private static boolean isSortedByStartTime(TimePartSource source) {
+        for (int i = 1, count = source.size(); i < count; i++) {
+            if (source.getStartTime(i) < source.getStartTime(i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Valid blocks, each one starting after the previous one has ended
+     */
+    private static boolean isNormalized(TimePartSource source) {
+        int lastEndTime = 0;
+        for (int i = 0, count = source.size(); i < count; i++) {
+            final int startTime = source.getStartTime(i);
+            final int endTime = source.getEndTime(i);
+            if (endTime < startTime || (i > 0 && startTime <= lastEndTime)) {
+                return false;
+            }
+            lastEndTime = endTime;
+        }
+        return true;
+    }
+
+    /**
+     * Append a block (in ascending start time order), merging it into the last one if they overlap
+     * @return the new size
+     */
+    private static int append(int[] startTimes, int[] endTimes, int size, int startTime, int endTime) {
+        if (endTime < startTime) {
+            return size;
+        }
+        if (size > 0 && startTime <= endTimes[size - 1]) {
+            // Overlaps the previous block: extend it
+            endTimes[size - 1] = Math.max(endTimes[size - 1], endTime);
+            return size;
+        }
+        startTimes[size] = startTime;
+        endTimes[size] = endTime;
+        return size + 1;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    int getStartTime(int index) {
+        return mSource.getStartTime(index);
+    }
+
+    int getEndTime(int index) {
+        return mSource.getEndTime(index);
+    }
+
+    /**
+     * Dichotomy finds the first block that ends at or after the given time
+     * @param time unit: s
+     * @return index of the block, or {@link #size()} if every block ends before the time
+     */
+    int findFirstEndingAfter(int time) {
+        int low = 0;
+        int high = mSize;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mSource.getEndTime(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Merged copy of the blocks
+     */
+    private static final class ArraySource implements TimePartSource {
+        private final int[] mStartTimes;
+        private final int[] mEndTimes;
+        private final int mSize;
+
+        ArraySource(int[] startTimes, int[] endTimes, int size) {
+            this.mStartTimes = startTimes;
+            this.mEndTimes = endTimes;
+            this.mSize = size;
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        @Override
+        public int getStartTime(int index) {
+            return mStartTimes[index];
+        }
+
+        @Override
+        public int getEndTime(int index) {
+            return mEndTimes[index];
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.myairmed.widget;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * TimePartPyramid
+ *
+ * Level-of-detail copies of a {@link TimePartIndex}, one per zoom level of {@link TimeRuleView}
+ *
+ * Ideas:
+ *  - Level i merges the blocks whose gap is shorter than mergeGaps[i] seconds, i.e. gaps that are thinner
+ *    than one pixel at every scale of that zoom level, so they would not be visible anyway
+ *  - The merge gaps grow as the zoom levels get coarser, so each level is built from the previous one
+ *    and gets smaller and smaller; a level whose gap is not above one second, or whose merge changes nothing,
+ *    shares the previous index, and the arrays of a merged level are trimmed to its blocks
+ *  - Merging a range is independent of the other ranges except at the seams, so large inputs are split
+ *    and merged with fork/join, and the halves are joined by merging the seam
+ */
+final class TimePartPyramid {
+
+    /**
+     * Below this number of blocks a range is merged on the current thread
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 16 * 1024;
+
+    private static ForkJoinPool sPool;
+
+    private final TimePartIndex[] mLevels;
+
+    private TimePartPyramid(TimePartIndex[] levels) {
+        this.mLevels = levels;
+    }
+
+    /**
+     * @param base      sorted, merged blocks
+     * @param mergeGaps for each zoom level, the gap (unit: s) below which neighbouring blocks are merged
+     */
+    static TimePartPyramid build(TimePartIndex base, float[] mergeGaps) {
+        final TimePartIndex[] levels = new TimePartIndex[mergeGaps.length];
+        TimePartIndex previous = base;
+        float previousGap = 0;
+        for (int i = 0; i < mergeGaps.length; i++) {
+            final float gap = mergeGaps[i];
+            if (gap <= 1) {
+                // Times are whole seconds and touching blocks are already merged: nothing to do
+                levels[i] = base;
+                previousGap = 0;
+            } else {
+                final TimePartIndex from = gap >= previousGap ? previous : base;
+                levels[i] = from.size() < 2 ? from : merge(from, gap);
+                previousGap = gap;
+            }
+            previous = levels[i];
+        }
+        return new TimePartPyramid(levels);
+    }
+
+    /**
+     * Shared pool for building pyramids of large inputs off the UI thread
+     */
+    static synchronized ForkJoinPool getPool() {
+        if (sPool == null) {
+            sPool = new ForkJoinPool();
+        }
+        return sPool;
+    }
+
+    /**
+     * Whether that many blocks are indexed and merged off the UI thread
+     */
+    static boolean isLarge(int blockCount) {
+        return blockCount > SEQUENTIAL_THRESHOLD;
+    }
+
+    TimePartIndex getLevel(int level) {
+        return mLevels[level];
+    }
+
+    private static TimePartIndex merge(TimePartIndex source, float gap) {
+        Range range;
+        if (source.size() > SEQUENTIAL_THRESHOLD) {
+            MergeTask task = new MergeTask(source, 0, source.size(), gap);
+            range = ForkJoinTask.inForkJoinPool() ? task.invoke() : getPool().invoke(task);
+        } else {
+            range = mergeRange(source, 0, source.size(), gap);
+        }
+        if (range.size == source.size()) {
+            // No gap was merged: share the previous level instead of keeping a copy
+            return source;
+        }
+        // The merge buffers are sized for the input, keep only the merged blocks
+        return TimePartIndex.of(Arrays.copyOf(range.startTimes, range.size), Arrays.copyOf(range.endTimes, range.size),
+                range.size);
+    }
+
+    /**
+     * Merge the blocks [from, to) on the current thread
+     */
+    private static Range mergeRange(TimePartIndex source, int from, int to, float gap) {
+        final int[] startTimes = new int[to - from];
+        final int[] endTimes = new int[to - from];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            final int startTime = source.getStartTime(i);
+            final int endTime = source.getEndTime(i);
+            if (size > 0 && startTime - endTimes[size - 1] < gap) {
+                endTimes[size - 1] = Math.max(endTimes[size - 1], endTime);
+            } else {
+                startTimes[size] = startTime;
+                endTimes[size] = endTime;
+                size++;
+            }
+        }
+        return new Range(startTimes, endTimes, size);
+    }
+
+    /**
+     * Concatenate two merged, adjacent ranges, merging the seam
+     */
+    private static Range concat(Range left, Range right, float gap) {
+        if (left.size == 0) {
+            return right;
+        }
+        if (right.size == 0) {
+            return left;
+        }
+        final int[] startTimes = new int[left.size + right.size];
+        final int[] endTimes = new int[left.size + right.size];
+        System.arraycopy(left.startTimes, 0, startTimes, 0, left.size);
+        System.arraycopy(left.endTimes, 0, endTimes, 0, left.size);
+        int size = left.size;
+        int rightFrom = 0;
+        if (right.startTimes[0] - endTimes[size - 1] < gap) {
+            endTimes[size - 1] = Math.max(endTimes[size - 1], right.endTimes[0]);
+            rightFrom = 1;
+        }
+        final int rightCount = right.size - rightFrom;
+        System.arraycopy(right.startTimes, rightFrom, startTimes, size, rightCount);
+        System.arraycopy(right.endTimes, rightFrom, endTimes, size, rightCount);
+        size += rightCount;
+        return new Range(startTimes, endTimes, size);
+    }
+
+    private static final class Range {
+        final int[] startTimes;
+        final int[] endTimes;
+        final int size;
+
+        Range(int[] startTimes, int[] endTimes, int size) {
+            this.startTimes = startTimes;
+            this.endTimes = endTimes;
+            this.size = size;
+        }
+    }
+
+    private static final class MergeTask extends RecursiveTask<Range> {
+        private static final long serialVersionUID = 1L;
+
+        private final TimePartIndex mSource;
+        private final int mFrom;
+        private final int mTo;
+        private final float mGap;
+
+        MergeTask(TimePartIndex source, int from, int to, float gap) {
+            this.mSource = source;
+            this.mFrom = from;
+            this.mTo = to;
+            this.mGap = gap;
+        }
+
+        @Override
+        protected Range compute() {
+            if (mTo - mFrom <= SEQUENTIAL_THRESHOLD) {
+                return mergeRange(mSource, mFrom, mTo, mGap);
+            }
+            final int mid = (mFrom + mTo) >>> 1;
+            MergeTask left = new MergeTask(mSource, mFrom, mid, mGap);
+            MergeTask right = new MergeTask(mSource, mid, mTo, mGap);
+            left.fork();
+            final Range rightRange = right.compute();
+            return concat(left.join(), rightRange, mGap);
+        }
+    }
+}
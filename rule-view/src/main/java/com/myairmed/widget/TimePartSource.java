@@ -0,0 +1,30 @@
+package com.myairmed.widget;
+
+/**
+ * TimePartSource
+ *
+ * Read-only access to time blocks (start and end times, unit: s) for {@link TimeRuleView},
+ * without requiring one {@link TimeRuleView.TimePart} object per block.
+ *
+ * Implementations: {@link TimePartStore} (growable int arrays) and the memory-mapped source
+ * returned by {@link TimePartFiles#map(java.io.File)}.
+ */
+public interface TimePartSource {
+
+    /**
+     * @return number of time blocks
+     */
+    int size();
+
+    /**
+     * @param index block index, [0, size())
+     * @return start time of the block, unit: s
+     */
+    int getStartTime(int index);
+
+    /**
+     * @param index block index, [0, size())
+     * @return end time of the block, unit: s
+     */
+    int getEndTime(int index);
+}
@@ -0,0 +1,123 @@
+package com.myairmed.widget;
+
+import java.util.Arrays;
+
+/**
+ * TimePartStore
+ *
+ * Collection of time blocks for {@link TimeRuleView}, stored as two parallel int arrays
+ * (start times and end times, unit: s) instead of one {@link TimeRuleView.TimePart} object per block.
+ *
+ * The arrays grow as blocks are appended. The blocks may be added in any order and may overlap,
+ * {@link TimeRuleView#setTimePartStore(TimePartStore)} sorts and merges them for drawing.
+ */
+public class TimePartStore implements TimePartSource {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] mStartTimes;
+    private int[] mEndTimes;
+    private int mSize;
+
+    public TimePartStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TimePartStore(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException(String.format("The initialCapacity of %d is invalid", initialCapacity));
+        }
+        mStartTimes = new int[initialCapacity];
+        mEndTimes = new int[initialCapacity];
+    }
+
+    /**
+     * Replace all blocks with the first count entries of the given arrays (the arrays are copied)
+     * @param startTimes start times, unit: s
+     * @param endTimes   end times, unit: s, endTimes[i] must be greater than startTimes[i]
+     * @param count      number of blocks to take from the arrays
+     */
+    public void setTimeParts(int[] startTimes, int[] endTimes, int count) {
+        checkBulkArgs(startTimes, endTimes, count);
+        if (count > mStartTimes.length) {
+            mStartTimes = new int[count];
+            mEndTimes = new int[count];
+        }
+        System.arraycopy(startTimes, 0, mStartTimes, 0, count);
+        System.arraycopy(endTimes, 0, mEndTimes, 0, count);
+        mSize = count;
+    }
+
+    /**
+     * Append one block
+     * @param startTime start time, unit: s
+     * @param endTime   end time, unit: s, must be greater than startTime
+     */
+    public void addTimePart(int startTime, int endTime) {
+        ensureCapacity(mSize + 1);
+        mStartTimes[mSize] = startTime;
+        mEndTimes[mSize] = endTime;
+        mSize++;
+    }
+
+    /**
+     * Append the first count entries of the given arrays
+     */
+    public void addTimeParts(int[] startTimes, int[] endTimes, int count) {
+        checkBulkArgs(startTimes, endTimes, count);
+        ensureCapacity(mSize + count);
+        System.arraycopy(startTimes, 0, mStartTimes, mSize, count);
+        System.arraycopy(endTimes, 0, mEndTimes, mSize, count);
+        mSize += count;
+    }
+
+    /**
+     * Make sure that at least minCapacity blocks fit without growing the arrays again
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= mStartTimes.length) {
+            return;
+        }
+        // Grow by half, like ArrayList
+        final int newCapacity = Math.max(minCapacity, mStartTimes.length + (mStartTimes.length >> 1));
+        mStartTimes = Arrays.copyOf(mStartTimes, newCapacity);
+        mEndTimes = Arrays.copyOf(mEndTimes, newCapacity);
+    }
+
+    /**
+     * Remove all blocks, the capacity is kept
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public int getStartTime(int index) {
+        checkIndex(index);
+        return mStartTimes[index];
+    }
+
+    @Override
+    public int getEndTime(int index) {
+        checkIndex(index);
+        return mEndTimes[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException(String.format("index=%d, size=%d", index, mSize));
+        }
+    }
+
+    private static void checkBulkArgs(int[] startTimes, int[] endTimes, int count) {
+        if (count < 0 || count > startTimes.length || count > endTimes.length) {
+            throw new IllegalArgumentException(String.format("The count of %d is out of range: startTimes.length=%d, endTimes.length=%d",
+                    count, startTimes.length, endTimes.length));
+        }
+    }
+}
@@ -6,6 +6,8 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -174,6 +176,11 @@ public class TimeRuleView extends View {
 
 
     private Paint mPaint;
+
+    /**
+     * Lines of the scale, then of the time blocks; one stroke style at a time
+     */
+    private final TickBatcher mTickBatcher = new TickBatcher(1);
     private TextPaint mTextPaint;
     private Path mTrianglePath;
     private Scroller mScroller;
@@ -192,7 +199,19 @@ public class TimeRuleView extends View {
     private boolean isMoving;
     private boolean isScaling;
 
-    private List<TimePart> mTimePartList;
+    /**
+     * Time blocks, sorted and merged, see {@link #setTimePartSource(TimePartSource)}
+     */
+    private TimePartIndex mTimePartIndex;
+    /**
+     * Level-of-detail copies of {@link #mTimePartIndex}, one per {@link #mPerTextCountIndex}, null until built
+     */
+    private TimePartPyramid mTimePartPyramid;
+    /**
+     * Increased on every change of the time blocks, so a pyramid built for older blocks is dropped
+     */
+    private int mTimePartGeneration;
+    private Handler mMainHandler;
     private OnTimeChangedListener mListener;
 
     public interface OnTimeChangedListener{
@@ -497,38 +516,71 @@ public class TimeRuleView extends View {
         // Move the canvas coordinate system
         canvas.save();
         canvas.translate(0, partHeight);
-        mPaint.setColor(gradationColor);
-        mPaint.setStrokeWidth(gradationWidth);
-
-        // Scale
-        int start = 0;
-        float offset = mHalfWidth - mCurrentDistance;
+        mTickBatcher.setStyle(0, gradationWidth, gradationColor);
+
+        // Scale: only the units inside the viewport (plus half a label on each side) are visited,
+        // so the cost follows the view width instead of the whole 24h range
+        final int firstUnit = findFirstVisibleUnit(mCurrentDistance, mHalfWidth, mTextHalfWidth, mUnitGap);
+        final int lastUnit = findLastVisibleUnit(mCurrentDistance, mWidth, mHalfWidth, mTextHalfWidth,
+                mUnitGap, mUnitSecond);
+        int start = firstUnit * mUnitSecond;
+        final int end = lastUnit * mUnitSecond;
+        float offset = mHalfWidth - mCurrentDistance + firstUnit * mUnitGap;
         final int perTextCount = mPerTextCounts[mPerTextCountIndex];
-        while (start <= MAX_TIME_VALUE) {
+        while (start <= end) {
             // Scale
             if (start % 3600 == 0) {
                 // Time degree
-                canvas.drawLine(offset, 0, offset, hourLen, mPaint);
+                mTickBatcher.addLine(0, offset, 0, offset, hourLen);
             } else if (start % 60 == 0) {
                 // Subscale
-                canvas.drawLine(offset, 0, offset, minuteLen, mPaint);
+                mTickBatcher.addLine(0, offset, 0, offset, minuteLen);
             } else{
                 // Second scale
-                canvas.drawLine(offset, 0, offset, secondLen, mPaint);
+                mTickBatcher.addLine(0, offset, 0, offset, secondLen);
             }
 
             // Time value
             if (start % perTextCount == 0) {
-                String text = formatTimeHHmm(start);
-                canvas.drawText(text, offset - mTextHalfWidth, hourLen + gradationTextGap + gradationTextSize, mTextPaint);
+                // perTextCount is always a whole number of minutes
+                canvas.drawText(TimeLabels.MINUTE_CHARS, start / 60 * TimeLabels.HHMM_LENGTH, TimeLabels.HHMM_LENGTH,
+                        offset - mTextHalfWidth, hourLen + gradationTextGap + gradationTextSize, mTextPaint);
             }
 
             start += mUnitSecond;
             offset += mUnitGap;
         }
+        // All the ticks share one stroke: a single drawLines call
+        mTickBatcher.flush(canvas, mPaint);
         canvas.restore();
     }
 
+    /**
+     * Index of the first unit (start / unitSecond) whose tick or label can be seen at the left edge
+     * @param currentDistance distance scrolled from 00:00, px
+     * @param halfWidth       x of the indicator
+     * @param textHalfWidth   half width of a label
+     * @param unitGap         distance between two units, px
+     */
+    static int findFirstVisibleUnit(float currentDistance, int halfWidth, float textHalfWidth, float unitGap) {
+        final float leftDistance = currentDistance - halfWidth - textHalfWidth;
+        final int unit = (int) Math.floor(leftDistance / unitGap);
+        return Math.max(0, unit);
+    }
+
+    /**
+     * Index of the last unit whose tick or label can be seen at the right edge
+     * @param width      width of the view
+     * @param unitSecond seconds of a unit
+     * @see #findFirstVisibleUnit(float, int, float, float)
+     */
+    static int findLastVisibleUnit(float currentDistance, int width, int halfWidth, float textHalfWidth,
+                                   float unitGap, int unitSecond) {
+        final float rightDistance = currentDistance + (width - halfWidth) + textHalfWidth;
+        final int unit = (int) Math.ceil(rightDistance / unitGap);
+        return Math.min(MAX_TIME_VALUE / unitSecond, unit);
+    }
+
     /**
      * Draw current time pointer
      */
@@ -557,21 +609,32 @@ public class TimeRuleView extends View {
      * Draw time period
      */
     private void drawTimeParts(Canvas canvas) {
-        if (mTimePartList == null) {
+        if (mTimePartIndex == null || mTimePartIndex.size() == 0) {
             return;
         }
         // Do not use rectangles, use straight lines to draw
-        mPaint.setStrokeWidth(partHeight);
-        mPaint.setColor(partColor);
+        mTickBatcher.setStyle(0, partHeight, partColor);
         float start, end;
         final float halfPartHeight = partHeight * .5f;
         final float secondGap = mUnitGap / mUnitSecond;
-        for (int i = 0, size = mTimePartList.size(); i < size; i++) {
-            TimePart timePart = mTimePartList.get(i);
-            start = mHalfWidth - mCurrentDistance + timePart.startTime * secondGap;
-            end = mHalfWidth - mCurrentDistance + timePart.endTime * secondGap;
-            canvas.drawLine(start, halfPartHeight, end, halfPartHeight, mPaint);
+        final float zeroOffset = mHalfWidth - mCurrentDistance;
+        // Visible time window: the times at the left and right edges of the view
+        final int leftTime = (int) Math.floor(-zeroOffset / secondGap);
+        final int rightTime = (int) Math.ceil((mWidth - zeroOffset) / secondGap);
+        // Zoomed out, sub-pixel gaps are merged in advance so the number of lines stays bounded
+        final TimePartIndex index = mTimePartPyramid != null
+                ? mTimePartPyramid.getLevel(mPerTextCountIndex) : mTimePartIndex;
+        for (int i = index.findFirstEndingAfter(leftTime), size = index.size(); i < size; i++) {
+            final int startTime = index.getStartTime(i);
+            if (startTime > rightTime) {
+                // The start times are ascending, the rest are all on the right of the view
+                break;
+            }
+            start = zeroOffset + startTime * secondGap;
+            end = zeroOffset + index.getEndTime(i) * secondGap;
+            mTickBatcher.addLine(0, start, halfPartHeight, end, halfPartHeight);
         }
+        mTickBatcher.flush(canvas, mPaint);
     }
 
     /**
@@ -583,6 +646,31 @@ public class TimeRuleView extends View {
         if (timeValue < 0){
             timeValue=0;
         }
+        if (timeValue > MAX_TIME_VALUE) {
+            return buildTimeHHmm(timeValue);
+        }
+        return TimeLabels.MINUTE_LABELS[timeValue / 60];
+    }
+
+    /**
+     * Format time HH:mm:ss
+     * @param timeValue specific time value
+     * @return formatted string, eg: 3600 to 01:00
+     */
+    public static String formatTimeHHmmss(@IntRange(from = 0, to = MAX_TIME_VALUE) int timeValue) {
+        if (timeValue < 0 || timeValue > MAX_TIME_VALUE) {
+            return buildTimeHHmmss(timeValue);
+        }
+        // Filled on demand: a benign race only builds the same (interned) string twice
+        String label = TimeLabels.SECOND_LABELS[timeValue];
+        if (label == null) {
+            label = buildTimeHHmmss(timeValue).intern();
+            TimeLabels.SECOND_LABELS[timeValue] = label;
+        }
+        return label;
+    }
+
+    private static String buildTimeHHmm(int timeValue) {
         int hour = timeValue / 3600;
         int minute = timeValue % 3600 / 60;
         StringBuilder sb = new StringBuilder();
@@ -597,12 +685,7 @@ public class TimeRuleView extends View {
         return sb.toString();
     }
 
-    /**
-     * Format time HH:mm:ss
-     * @param timeValue specific time value
-     * @return formatted string, eg: 3600 to 01:00
-     */
-    public static String formatTimeHHmmss(@IntRange(from = 0, to = MAX_TIME_VALUE) int timeValue) {
+    private static String buildTimeHHmmss(int timeValue) {
         int hour = timeValue / 3600;
         int minute = timeValue % 3600 / 60;
         int second = timeValue % 3600 % 60;
@@ -626,6 +709,35 @@ public class TimeRuleView extends View {
         return sb.toString();
     }
 
+    /**
+     * Label table shared by all instances, built the first time a label is needed (lazy holder)
+     *
+     * MINUTE_CHARS holds the "HH:mm" characters of every minute from 00:00 to 24:00 back to back,
+     * so the label of minute m starts at m * HHMM_LENGTH and can be drawn without allocating.
+     */
+    private static final class TimeLabels {
+        static final int HHMM_LENGTH = 5;
+        static final int MINUTE_COUNT = MAX_TIME_VALUE / 60 + 1;
+
+        static final char[] MINUTE_CHARS = new char[MINUTE_COUNT * HHMM_LENGTH];
+        static final String[] MINUTE_LABELS = new String[MINUTE_COUNT];
+        static final String[] SECOND_LABELS = new String[MAX_TIME_VALUE + 1];
+
+        static {
+            for (int minute = 0; minute < MINUTE_COUNT; minute++) {
+                final int hour = minute / 60;
+                final int minuteOfHour = minute % 60;
+                final int index = minute * HHMM_LENGTH;
+                MINUTE_CHARS[index] = (char) ('0' + hour / 10);
+                MINUTE_CHARS[index + 1] = (char) ('0' + hour % 10);
+                MINUTE_CHARS[index + 2] = ':';
+                MINUTE_CHARS[index + 3] = (char) ('0' + minuteOfHour / 10);
+                MINUTE_CHARS[index + 4] = (char) ('0' + minuteOfHour % 10);
+                MINUTE_LABELS[minute] = new String(MINUTE_CHARS, index, HHMM_LENGTH).intern();
+            }
+        }
+    }
+
     private int dp2px(float dp) {
         return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, getResources().getDisplayMetrics());
     }
@@ -651,13 +763,114 @@ public class TimeRuleView extends View {
 
     /**
      * Set time block (segment) collection
+     * Convenience wrapper of {@link #setTimePartStore(TimePartStore)}: the blocks are copied,
+     * so later changes to the list are only picked up by calling this method again
      * @param timePartList Time block collection
      */
     public void setTimePartList(List<TimePart> timePartList) {
-        this.mTimePartList = timePartList;
+        if (timePartList == null) {
+            setTimePartStore(null);
+            return;
+        }
+        final int size = timePartList.size();
+        TimePartStore store = new TimePartStore(size);
+        for (int i = 0; i < size; i++) {
+            TimePart timePart = timePartList.get(i);
+            if (timePart != null) {
+                store.addTimePart(timePart.startTime, timePart.endTime);
+            }
+        }
+        setTimePartStore(store);
+    }
+
+    /**
+     * Set time blocks held in primitive arrays
+     * The blocks are copied into a sorted index and overlapping blocks are merged,
+     * so later changes to the store are only picked up by calling this method again
+     * @param store Time block store, null to clear
+     */
+    public void setTimePartStore(TimePartStore store) {
+        setTimePartIndex(store == null ? null : TimePartIndex.build(store));
+    }
+
+    /**
+     * Set time blocks from any source, e.g. a timeline file mapped by {@link TimePartFiles#map(java.io.File)}
+     * A source whose blocks are sorted by start time and do not overlap is read directly, without a copy,
+     * so it must not change while it is set; any other source is copied like {@link #setTimePartStore(TimePartStore)}
+     * Checking the order reads every block, so a large source is checked and indexed in the background
+     * and its blocks are drawn once that is done
+     * @param source Time block source, null to clear
+     */
+    public void setTimePartSource(TimePartSource source) {
+        if (source != null && TimePartPyramid.isLarge(source.size())) {
+            this.mTimePartIndex = null;
+            this.mTimePartPyramid = null;
+            buildInBackground(null, source, ++mTimePartGeneration);
+            postInvalidate();
+        } else {
+            setTimePartIndex(source == null ? null : TimePartIndex.wrap(source));
+        }
+    }
+
+    private void setTimePartIndex(TimePartIndex index) {
+        this.mTimePartIndex = index;
+        this.mTimePartPyramid = null;
+        final int generation = ++mTimePartGeneration;
+        if (index != null && index.size() > 1) {
+            if (!TimePartPyramid.isLarge(index.size())) {
+                mTimePartPyramid = TimePartPyramid.build(index, computeMergeGaps());
+            } else {
+                // Large inputs are merged in the background, the unmerged blocks are drawn meanwhile
+                buildInBackground(index, null, generation);
+            }
+        }
         postInvalidate();
     }
 
+    /**
+     * Build the pyramid on {@link TimePartPyramid#getPool()} and publish it on the UI thread,
+     * unless other blocks have been set in between
+     * @param index  index to merge, or null to index the source first
+     * @param source source of the index when index is null
+     */
+    private void buildInBackground(final TimePartIndex index, final TimePartSource source, final int generation) {
+        final float[] mergeGaps = computeMergeGaps();
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        final Handler mainHandler = mMainHandler;
+        TimePartPyramid.getPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                final TimePartIndex builtIndex = index != null ? index : TimePartIndex.wrap(source);
+                final TimePartPyramid pyramid = TimePartPyramid.build(builtIndex, mergeGaps);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mTimePartGeneration) {
+                            mTimePartIndex = builtIndex;
+                            mTimePartPyramid = pyramid;
+                            invalidate();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * For each zoom level, the gap (unit: s) that is thinner than one pixel at every scale of the level
+     */
+    private float[] computeMergeGaps() {
+        final float[] mergeGaps = new float[mPerCountScaleThresholds.length];
+        for (int i = 0; i < mergeGaps.length; i++) {
+            // The largest scale of level i is the threshold of level i - 1, level 0 is capped by its own threshold
+            final float maxScale = mPerCountScaleThresholds[i == 0 ? 0 : i - 1];
+            mergeGaps[i] = 1f / (maxScale * mOneSecondGap);
+        }
+        return mergeGaps;
+    }
+
     /**
      * Set current time
      * @param currentTime current time
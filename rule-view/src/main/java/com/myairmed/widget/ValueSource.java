@@ -0,0 +1,75 @@
+package com.myairmed.widget;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ValueSource
+ *
+ * Live readings (e.g. from a sensor) for {@link ThermometerView#bindValueSource(ValueSource)}
+ *
+ * Ideas:
+ *  - {@link #publish(float)} can be called from any thread at any rate, it only overwrites a lock-free latest-value slot
+ *  - The first reading after the view has taken the previous one asks the view to take it on the next frame,
+ *    so however many readings arrive, the UI thread takes at most one per frame
+ *  - A source feeds one view at a time: binding it to a second view throws,
+ *    and a view only releases the source if it is still the one it feeds
+ */
+public class ValueSource {
+
+    interface Receiver {
+        /**
+         * A new reading is waiting, called on the thread that published it
+         */
+        void onValueAvailable();
+    }
+
+    private final AtomicInteger mLatestBits = new AtomicInteger();
+    private final AtomicBoolean mFresh = new AtomicBoolean();
+    private final AtomicReference<Receiver> mReceiver = new AtomicReference<>();
+
+    /**
+     * Publish a reading, replacing the previous one if the view has not taken it yet
+     * @param value reading, unit: ℃
+     */
+    public void publish(float value) {
+        mLatestBits.set(Float.floatToRawIntBits(value));
+        if (mFresh.compareAndSet(false, true)) {
+            final Receiver receiver = mReceiver.get();
+            if (receiver != null) {
+                receiver.onValueAvailable();
+            }
+        }
+    }
+
+    /**
+     * Whether a reading has been published and not taken yet
+     */
+    public boolean hasFreshValue() {
+        return mFresh.get();
+    }
+
+    /**
+     * Make a receiver the one the source notifies
+     * @return false if the source already notifies another receiver
+     */
+    boolean bindReceiver(Receiver receiver) {
+        return mReceiver.compareAndSet(null, receiver) || mReceiver.get() == receiver;
+    }
+
+    /**
+     * Stop notifying a receiver; nothing happens if the source notifies another one
+     */
+    void unbindReceiver(Receiver receiver) {
+        mReceiver.compareAndSet(receiver, null);
+    }
+
+    /**
+     * Take the latest reading; readings published from now on notify the receiver again
+     */
+    float take() {
+        mFresh.set(false);
+        return Float.intBitsToFloat(mLatestBits.get());
+    }
+}
@@ -0,0 +1,57 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Normalization and the nearest value search of {@link AllowedValues}
+ */
+public class AllowedValuesTest {
+
+    @Test
+    public void constructor_sortsAndDropsDuplicates() {
+        final AllowedValues values = new AllowedValues(new long[]{30, 10, 20, 10, 30});
+        assertEquals(3, values.size());
+        assertEquals(10, values.get(0));
+        assertEquals(20, values.get(1));
+        assertEquals(30, values.get(2));
+    }
+
+    @Test
+    public void nearest_takesLowerValueOnTie() {
+        final AllowedValues values = new AllowedValues(new long[]{10, 20});
+        assertEquals(10, values.nearest(15, 0, 100));
+        assertEquals(20, values.nearest(16, 0, 100));
+        assertEquals(10, values.nearest(-5, 0, 100));
+        assertEquals(20, values.nearest(90, 0, 100));
+    }
+
+    @Test
+    public void nearest_ignoresValuesOutOfRange() {
+        final AllowedValues values = new AllowedValues(new long[]{-10, 40, 60, 200});
+        assertEquals(40, values.nearest(0, 0, 100));
+        assertEquals(60, values.nearest(150, 0, 100));
+    }
+
+    @Test
+    public void nearest_clampsWhenNoValueIsInRange() {
+        final AllowedValues values = new AllowedValues(new long[]{500});
+        assertEquals(0, values.nearest(-20, 0, 100));
+        assertEquals(42, values.nearest(42, 0, 100));
+        assertEquals(100, values.nearest(300, 0, 100));
+    }
+
+    @Test
+    public void lowerBound_findsFirstValueAtOrAbove() {
+        final AllowedValues values = new AllowedValues(new long[]{10, 20, 30});
+        assertEquals(0, values.lowerBound(10));
+        assertEquals(1, values.lowerBound(11));
+        assertEquals(3, values.lowerBound(31));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsEmptyValues() {
+        new AllowedValues(new long[0]);
+    }
+}
@@ -0,0 +1,58 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Order and overwriting of {@link FloatRingBuffer}
+ */
+public class FloatRingBufferTest {
+
+    @Test
+    public void append_keepsOldestFirstBelowCapacity() {
+        final FloatRingBuffer buffer = new FloatRingBuffer(4);
+        buffer.append(1f);
+        buffer.append(2f);
+        assertEquals(2, buffer.size());
+        assertEquals(1f, buffer.get(0), 0f);
+        assertEquals(2f, buffer.get(1), 0f);
+    }
+
+    @Test
+    public void append_overwritesOldestWhenFull() {
+        final FloatRingBuffer buffer = new FloatRingBuffer(3);
+        for (int i = 1; i <= 7; i++) {
+            buffer.append(i);
+        }
+        assertEquals(3, buffer.size());
+        assertEquals(3, buffer.capacity());
+        assertEquals(5f, buffer.get(0), 0f);
+        assertEquals(6f, buffer.get(1), 0f);
+        assertEquals(7f, buffer.get(2), 0f);
+    }
+
+    @Test
+    public void clear_startsOver() {
+        final FloatRingBuffer buffer = new FloatRingBuffer(2);
+        buffer.append(1f);
+        buffer.append(2f);
+        buffer.append(3f);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        buffer.append(4f);
+        assertEquals(4f, buffer.get(0), 0f);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_rejectsIndexBeyondSize() {
+        final FloatRingBuffer buffer = new FloatRingBuffer(4);
+        buffer.append(1f);
+        buffer.get(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsZeroCapacity() {
+        new FloatRingBuffer(0);
+    }
+}
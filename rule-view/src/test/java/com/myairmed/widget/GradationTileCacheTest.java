@@ -0,0 +1,108 @@
+package com.myairmed.widget;
+
+import android.graphics.Canvas;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Budget math and LRU replacement of {@link GradationTileCache}
+ */
+public class GradationTileCacheTest {
+
+    private static final int TILE_WIDTH = 256;
+    private static final int TILE_HEIGHT = 100;
+    private static final int TILE_BYTES = TILE_WIDTH * TILE_HEIGHT * 4;
+
+    /**
+     * Records the tiles it is asked to render
+     */
+    private static final class RecordingRenderer implements GradationTileCache.TileRenderer {
+        final List<Long> rendered = new ArrayList<>();
+
+        @Override
+        public void renderTile(Canvas canvas, long tileIndex, int tileWidth) {
+            rendered.add(tileIndex);
+        }
+    }
+
+    @Test
+    public void getCapacity_countsWholeArgbTiles() {
+        assertEquals(3, GradationTileCache.getCapacity(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 3));
+        assertEquals(2, GradationTileCache.getCapacity(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 3 - 1));
+        assertEquals(0, GradationTileCache.getCapacity(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES - 1));
+    }
+
+    @Test
+    public void getVisibleTileCount_addsOneForUnalignedStrip() {
+        assertEquals(5, GradationTileCache.getVisibleTileCount(1024, TILE_WIDTH));
+        assertEquals(6, GradationTileCache.getVisibleTileCount(1080, TILE_WIDTH));
+        assertEquals(2, GradationTileCache.getVisibleTileCount(1, TILE_WIDTH));
+    }
+
+    @Test
+    public void canHoldFrame_needsEveryVisibleTile() {
+        // 1080 px: ceil(1080 / 256) + 1 = 6 tiles
+        assertTrue(GradationTileCache.canHoldFrame(1080, TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 6));
+        assertFalse(GradationTileCache.canHoldFrame(1080, TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 6 - 1));
+        assertFalse(GradationTileCache.canHoldFrame(1080, TILE_WIDTH, 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void getTile_rendersOnlyOnMiss() {
+        final GradationTileCache cache = new GradationTileCache(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 2);
+        final RecordingRenderer renderer = new RecordingRenderer();
+        cache.getTile(0, renderer);
+        cache.getTile(1, renderer);
+        cache.getTile(0, renderer);
+        cache.getTile(1, renderer);
+        assertEquals(2, renderer.rendered.size());
+    }
+
+    @Test
+    public void getTile_evictsLeastRecentlyUsed() {
+        final GradationTileCache cache = new GradationTileCache(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 2);
+        final RecordingRenderer renderer = new RecordingRenderer();
+        cache.getTile(0, renderer);
+        cache.getTile(1, renderer);
+        // 0 becomes the most recently used, so 2 replaces 1
+        cache.getTile(0, renderer);
+        cache.getTile(2, renderer);
+        cache.getTile(0, renderer);
+        assertEquals(3, renderer.rendered.size());
+        cache.getTile(1, renderer);
+        assertEquals(Long.valueOf(1), renderer.rendered.get(3));
+    }
+
+    @Test
+    public void getTile_frameWiderThanCapacityRendersEveryTime() {
+        // The reason for canHoldFrame: 3 tiles per frame in 2 slots miss on every frame
+        final GradationTileCache cache = new GradationTileCache(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 2);
+        final RecordingRenderer renderer = new RecordingRenderer();
+        for (int frame = 0; frame < 4; frame++) {
+            for (long tile = 0; tile < 3; tile++) {
+                cache.getTile(tile, renderer);
+            }
+        }
+        assertEquals(12, renderer.rendered.size());
+    }
+
+    @Test
+    public void invalidate_rendersAgain() {
+        final GradationTileCache cache = new GradationTileCache(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES * 2);
+        final RecordingRenderer renderer = new RecordingRenderer();
+        cache.getTile(5, renderer);
+        cache.invalidate();
+        cache.getTile(5, renderer);
+        assertEquals(2, renderer.rendered.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsBudgetBelowOneTile() {
+        new GradationTileCache(TILE_WIDTH, TILE_HEIGHT, TILE_BYTES - 1);
+    }
+}
@@ -0,0 +1,66 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sorted insertion, replacement and removal of {@link MarkerIndex}
+ */
+public class MarkerIndexTest {
+
+    @Test
+    public void put_keepsMarkersSortedBeyondInitialCapacity() {
+        final MarkerIndex markers = new MarkerIndex();
+        for (int i = 20; i > 0; i--) {
+            markers.put(i * 100, i);
+        }
+        assertEquals(20, markers.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals((i + 1) * 100, markers.valueAt(i));
+            assertEquals(i + 1, markers.colorAt(i));
+        }
+    }
+
+    @Test
+    public void put_replacesColorOfExistingMarker() {
+        final MarkerIndex markers = new MarkerIndex();
+        markers.put(500, 1);
+        markers.put(500, 2);
+        assertEquals(1, markers.size());
+        assertEquals(2, markers.colorAt(0));
+    }
+
+    @Test
+    public void remove_shiftsFollowingMarkers() {
+        final MarkerIndex markers = new MarkerIndex();
+        markers.put(100, 1);
+        markers.put(200, 2);
+        markers.put(300, 3);
+        assertTrue(markers.remove(200));
+        assertFalse(markers.remove(200));
+        assertEquals(2, markers.size());
+        assertEquals(300, markers.valueAt(1));
+        assertEquals(3, markers.colorAt(1));
+    }
+
+    @Test
+    public void lowerBound_findsFirstMarkerAtOrAbove() {
+        final MarkerIndex markers = new MarkerIndex();
+        markers.put(100, 1);
+        markers.put(200, 2);
+        assertEquals(0, markers.lowerBound(Long.MIN_VALUE));
+        assertEquals(0, markers.lowerBound(100));
+        assertEquals(1, markers.lowerBound(101));
+        assertEquals(2, markers.lowerBound(201));
+    }
+
+    @Test
+    public void clear_removesEveryMarker() {
+        final MarkerIndex markers = new MarkerIndex();
+        markers.put(100, 1);
+        markers.clear();
+        assertEquals(0, markers.size());
+        assertEquals(0, markers.lowerBound(100));
+    }
+}
@@ -0,0 +1,63 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Band lookup of {@link MercuryColorLut}; gradients blend through android.graphics.Color and are not covered here
+ */
+public class MercuryColorLutTest {
+
+    private static final int LOW = 1;
+    private static final int NORMAL = 2;
+    private static final int HIGH = 3;
+
+    @Test
+    public void getColor_switchesBandExactlyAtThresholds() {
+        final MercuryColorLut lut = new MercuryColorLut(-20f, 50f, new float[]{37.3f, 38.05f},
+                new int[]{LOW, NORMAL, HIGH}, false);
+        // Band k is (thresholds[k - 1], thresholds[k]]
+        assertEquals(LOW, lut.getColor(37.29f));
+        assertEquals(LOW, lut.getColor(37.3f));
+        assertEquals(NORMAL, lut.getColor(37.31f));
+        assertEquals(NORMAL, lut.getColor(38.05f));
+        assertEquals(HIGH, lut.getColor(38.06f));
+    }
+
+    @Test
+    public void getColor_matchesBandsOverWholeRange() {
+        final float[] thresholds = {35.55f, 37.3f, 39.99f};
+        final int[] colors = {0, 1, 2, 3};
+        final MercuryColorLut lut = new MercuryColorLut(35f, 42f, thresholds, colors, false);
+        for (float value = 35f; value <= 42f; value += 0.01f) {
+            int band = 0;
+            while (band < thresholds.length && value > thresholds[band]) {
+                band++;
+            }
+            assertEquals(colors[band], lut.getColor(value));
+        }
+    }
+
+    @Test
+    public void getColor_clampsValuesOutOfRange() {
+        final MercuryColorLut lut = new MercuryColorLut(35f, 42f, new float[]{37f}, new int[]{LOW, HIGH}, false);
+        assertEquals(LOW, lut.getColor(-100f));
+        assertEquals(HIGH, lut.getColor(100f));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsWrongColorCount() {
+        new MercuryColorLut(35f, 42f, new float[]{37f}, new int[]{LOW}, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsDescendingThresholds() {
+        new MercuryColorLut(35f, 42f, new float[]{38f, 37f}, new int[]{LOW, NORMAL, HIGH}, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsEmptyRange() {
+        new MercuryColorLut(42f, 42f, new float[]{37f}, new int[]{LOW, HIGH}, false);
+    }
+}
@@ -0,0 +1,93 @@
+package com.myairmed.widget;
+
+import android.graphics.Path;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Outline built by {@link MercuryWave} on every frame, and its cost
+ */
+public class MercuryWaveTest {
+
+    /**
+     * Keeps the points of the outline since the last rewind
+     */
+    private static final class RecordingPath extends Path {
+        float[] xs = new float[1024];
+        float[] ys = new float[1024];
+        int count;
+        int rewinds;
+
+        @Override
+        public void rewind() {
+            count = 0;
+            rewinds++;
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+            lineTo(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+    }
+
+    @Test
+    public void getPath_followsTheSineFromTheBottomLeft() {
+        final RecordingPath path = new RecordingPath();
+        // 16 segments per wavelength: one point every 2 px
+        final MercuryWave wave = new MercuryWave(null, path, 3f, 32f, 1000);
+        assertSame(path, wave.getPath(10f, 100f, 42f, 300f));
+        // Bottom left, 16 points of the surface, the right end of the surface, bottom right
+        assertEquals(19, path.count);
+        assertEquals(10f, path.xs[0], 0f);
+        assertEquals(300f, path.ys[0], 0f);
+        assertEquals(100f, path.ys[1], 1e-4f);
+        // A quarter of a wave: the crest
+        assertEquals(18f, path.xs[5], 1e-4f);
+        assertEquals(103f, path.ys[5], 1e-4f);
+        assertEquals(97f, path.ys[13], 1e-4f);
+        assertEquals(42f, path.xs[17], 0f);
+        assertEquals(300f, path.ys[18], 0f);
+    }
+
+    @Test
+    public void getPath_reusesThePathEveryFrame() {
+        final RecordingPath path = new RecordingPath();
+        final MercuryWave wave = new MercuryWave(null, path, 3f, 32f, 1000);
+        for (int frame = 0; frame < 3; frame++) {
+            assertSame(path, wave.getPath(0f, 100f, 64f, 300f));
+            assertEquals(35, path.count);
+        }
+        assertEquals(3, path.rewinds);
+    }
+
+    @Test
+    public void getPath_staysWithinAFractionOfAMillisecond() {
+        final MercuryWave wave = new MercuryWave(null, new RecordingPath(), 6f, 24f, 1000);
+        final int frames = 2000;
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            final long start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                // A 1080 px wide surface: 721 points, far wider than a thermometer tube
+                wave.getPath(0f, 100f, 1080f, 300f);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / frames);
+        }
+        // The table lookups of a frame, without the Path natives which need a device
+        assertTrue(String.format("%d ns per frame", best), best < 100000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setShape_rejectsZeroWaveLength() {
+        new MercuryWave(null, new RecordingPath(), 3f, 0f, 1000);
+    }
+}
@@ -0,0 +1,150 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Both directions of the {@link ScaleMapping} implementations, and the ordinals of their labels
+ */
+public class ScaleMappingTest {
+
+    private static void assertRoundTrips(ScaleMapping mapping, long lastIndex) {
+        for (long i = 0; i <= lastIndex; i++) {
+            final long value = mapping.valueAt(i);
+            assertEquals(i, mapping.indexOf(value));
+            // Every value up to the next tick belongs to this tick
+            assertEquals(i, mapping.indexOf(mapping.valueAt(i + 1) - 1));
+        }
+    }
+
+    private static void assertConsecutiveLabelOrdinals(ScaleMapping mapping, long lastIndex) {
+        long expected = 0;
+        for (long i = 0; i <= lastIndex; i++) {
+            if (mapping.isLabeled(i)) {
+                assertEquals(expected, mapping.labelOrdinalOf(i));
+                assertEquals(0, mapping.valueAt(i) % mapping.getLabelStep());
+                expected++;
+            }
+        }
+    }
+
+    @Test
+    public void linear_roundTrips() {
+        assertRoundTrips(new ScaleMapping.Linear(50, 10), 10000);
+    }
+
+    @Test
+    public void linear_labelsEveryPerCountTicks() {
+        final ScaleMapping mapping = new ScaleMapping.Linear(50, 10);
+        assertTrue(mapping.isLabeled(0));
+        assertFalse(mapping.isLabeled(9));
+        assertTrue(mapping.isLabeled(10));
+        assertEquals(500, mapping.getLabelStep());
+        assertConsecutiveLabelOrdinals(mapping, 10000);
+    }
+
+    @Test
+    public void linear_clampsNegativeValuesToFirstTick() {
+        assertEquals(0, new ScaleMapping.Linear(100, 5).indexOf(-250));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void linear_rejectsZeroUnit() {
+        new ScaleMapping.Linear(0, 10);
+    }
+
+    @Test
+    public void log10_decadeEdges() {
+        final ScaleMapping mapping = new ScaleMapping.Log10(100);
+        assertEquals(0, mapping.valueAt(0));
+        assertEquals(100, mapping.valueAt(1));
+        assertEquals(900, mapping.valueAt(9));
+        assertEquals(1000, mapping.valueAt(10));
+        assertEquals(9000, mapping.valueAt(18));
+        assertEquals(10000, mapping.valueAt(19));
+
+        assertEquals(0, mapping.indexOf(99));
+        assertEquals(1, mapping.indexOf(100));
+        assertEquals(9, mapping.indexOf(999));
+        assertEquals(10, mapping.indexOf(1000));
+        assertEquals(18, mapping.indexOf(9999));
+        assertEquals(19, mapping.indexOf(10000));
+    }
+
+    @Test
+    public void log10_roundTripsUpToLargeDecades() {
+        // base * 10^15 * 9 still fits in a long
+        assertRoundTrips(new ScaleMapping.Log10(100), 9 * 15);
+    }
+
+    @Test
+    public void log10_indexOfMaxValueDoesNotOverflow() {
+        final ScaleMapping mapping = new ScaleMapping.Log10(1);
+        // 9 * 10^18 is the last tick below Long.MAX_VALUE
+        assertEquals(9000000000000000000L, mapping.valueAt(mapping.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void log10_valueAtSaturatesPastLastTick() {
+        final ScaleMapping mapping = new ScaleMapping.Log10(1);
+        final long last = mapping.indexOf(Long.MAX_VALUE);
+        // 10^19 and beyond do not fit in a long
+        assertEquals(Long.MAX_VALUE, mapping.valueAt(last + 1));
+        assertEquals(Long.MAX_VALUE, mapping.valueAt(last + 100));
+        assertEquals(Long.MAX_VALUE, mapping.valueAt(Long.MAX_VALUE));
+        // The mantissa overflows before the power does: 2 * 5 * 10^18
+        final ScaleMapping fives = new ScaleMapping.Log10(5);
+        assertEquals(5000000000000000000L, fives.valueAt(1 + 18 * 9));
+        assertEquals(Long.MAX_VALUE, fives.valueAt(2 + 18 * 9));
+    }
+
+    @Test
+    public void log10_labelsEveryPowerOfTen() {
+        final ScaleMapping mapping = new ScaleMapping.Log10(100);
+        assertTrue(mapping.isLabeled(0));
+        assertTrue(mapping.isLabeled(1));
+        assertFalse(mapping.isLabeled(2));
+        assertTrue(mapping.isLabeled(10));
+        assertEquals(100, mapping.getLabelStep());
+        assertConsecutiveLabelOrdinals(mapping, 9 * 15);
+    }
+
+    @Test
+    public void piecewise_segmentSearch() {
+        final ScaleMapping mapping = new ScaleMapping.Piecewise(new long[]{0, 10000, 100000},
+                new long[]{100, 1000, 10000}, new int[]{10, 10, 10});
+        // The second segment starts at tick 10000 / 100
+        assertEquals(9900, mapping.valueAt(99));
+        assertEquals(10000, mapping.valueAt(100));
+        assertEquals(11000, mapping.valueAt(101));
+        assertEquals(100000, mapping.valueAt(190));
+        assertEquals(110000, mapping.valueAt(191));
+
+        assertEquals(99, mapping.indexOf(9999));
+        assertEquals(100, mapping.indexOf(10000));
+        assertEquals(100, mapping.indexOf(10999));
+        assertEquals(190, mapping.indexOf(100000));
+        assertRoundTrips(mapping, 1000);
+    }
+
+    @Test
+    public void piecewise_labelOrdinalsAcrossUnalignedSegments() {
+        // 300 is not a multiple of the first label step (500), 1300 not one of the second (400)
+        final ScaleMapping mapping = new ScaleMapping.Piecewise(new long[]{0, 300, 1300},
+                new long[]{100, 50, 200}, new int[]{5, 8, 3});
+        // gcd of the label steps 500, 400 and 600
+        assertEquals(100, mapping.getLabelStep());
+        assertConsecutiveLabelOrdinals(mapping, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewise_rejectsSegmentNotMultipleOfUnit() {
+        new ScaleMapping.Piecewise(new long[]{0, 150}, new long[]{100, 10}, new int[]{10, 10});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewise_rejectsFirstSegmentNotAtZero() {
+        new ScaleMapping.Piecewise(new long[]{100}, new long[]{100}, new int[]{10});
+    }
+}
@@ -0,0 +1,82 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mapping between y and temperature, and the tick steps of {@link ThermometerScaleModel}
+ */
+public class ThermometerScaleModelTest {
+
+    @Test
+    public void indexOf_roundsToNearestTickAndClamps() {
+        // Ticks every 10 px from y = 100, 42.0 down to 35.0
+        final ThermometerScaleModel model = new ThermometerScaleModel(100f, 10f, 42f, 70, 4f, 20f);
+        assertEquals(0, model.indexOf(104f));
+        assertEquals(1, model.indexOf(106f));
+        assertEquals(0, model.indexOf(-50f));
+        assertEquals(70, model.indexOf(10000f));
+    }
+
+    @Test
+    public void valueAndY_agree() {
+        final ThermometerScaleModel model = new ThermometerScaleModel(100f, 10f, 42f, 70, 4f, 20f);
+        assertEquals(42f, model.valueAt(0), 1e-4f);
+        assertEquals(37.5f, model.valueAt(45), 1e-4f);
+        assertEquals(550f, model.yAt(45), 1e-4f);
+        assertEquals(model.yAt(45), model.yOf(37.5f), 1e-3f);
+        assertEquals(37.5f, model.snapToTenth(551f), 1e-4f);
+    }
+
+    @Test
+    public void steps_keepEveryTenthWhenTicksAreFarApart() {
+        final ThermometerScaleModel model = new ThermometerScaleModel(0f, 10f, 42f, 70, 4f, 20f);
+        assertEquals(1, model.getTickStep());
+        assertEquals(5, model.getMidStep());
+        assertEquals(10, model.getMajorStep());
+    }
+
+    @Test
+    public void steps_growWithDenseTicks() {
+        // 0.5 px per tenth: 1, 2 and 5 tenths are closer than 4 px
+        final ThermometerScaleModel model = new ThermometerScaleModel(0f, .5f, 100f, 2000, 4f, 40f);
+        assertEquals(10, model.getTickStep());
+        assertEquals(50, model.getMidStep());
+        assertEquals(100, model.getMajorStep());
+    }
+
+    @Test
+    public void firstIndexOf_startsAtAbsoluteMultiples() {
+        final ThermometerScaleModel model = new ThermometerScaleModel(0f, 10f, 42.3f, 73, 4f, 20f);
+        assertEquals(423, model.tenthsAt(0));
+        // 42.0 and 40.0
+        assertEquals(3, model.firstIndexOf(10));
+        assertEquals(23, model.firstIndexOf(50));
+    }
+
+    @Test
+    public void firstIndexOf_handlesNegativeValues() {
+        final ThermometerScaleModel model = new ThermometerScaleModel(0f, 10f, -1.2f, 100, 4f, 20f);
+        // -2.0 is the first multiple of 1.0 below -1.2
+        assertEquals(8, model.firstIndexOf(10));
+        assertEquals(-20, model.tenthsAt(8));
+    }
+
+    @Test
+    public void drawnTicks_followHeightNotRange() {
+        // -40.0 to 125.0 on 400 px, then a range ten times wider on the same height
+        final float height = 400f;
+        final float minTickSpacing = 4f;
+        for (int lastIndex : new int[]{1650, 16500}) {
+            final float scaleSpaceHeight = height / lastIndex;
+            final ThermometerScaleModel model = new ThermometerScaleModel(0f, scaleSpaceHeight, 125f, lastIndex,
+                    minTickSpacing, 20f);
+            final int step = model.getTickStep();
+            final int drawn = (lastIndex - model.firstIndexOf(step)) / step + 1;
+            // Every tenth was drawn before decimation: 1651 and 16501 lines per frame
+            assertTrue(drawn <= height / minTickSpacing + 1);
+            assertTrue(drawn * step * scaleSpaceHeight >= height - step * scaleSpaceHeight);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.myairmed.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mask bounds of {@link ThermometerShadow} and the work a frame does on the view canvas
+ */
+public class ThermometerShadowTest {
+
+    private static final float RADIUS = 10f;
+
+    /**
+     * Counts the blits, and fails on any other drawing: blurred shapes are only drawn into the mask
+     */
+    private static final class BlitOnlyCanvas extends Canvas {
+        int blits;
+        float lastX;
+        float lastY;
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            blits++;
+            lastX = left;
+            lastY = top;
+        }
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+            fail("drawPath on the view canvas");
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            fail("drawCircle on the view canvas");
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+            fail("drawRect on the view canvas");
+        }
+    }
+
+    /**
+     * A 300 x 1440 px view: bulb of radius 60 at the bottom, top of radius 30, tube 60 px wide
+     */
+    private static ThermometerShadow newTallShadow() {
+        final ThermometerShadow shadow = new ThermometerShadow(RADIUS);
+        final RectF tube = new RectF();
+        tube.left = 120f;
+        tube.top = 100f;
+        tube.right = 180f;
+        tube.bottom = 1300f;
+        shadow.setShape(150f, 100f, 30f, 1300f, 60f, tube);
+        return shadow;
+    }
+
+    @Test
+    public void setShape_boundsTheMaskToTheSilhouetteAndBlur() {
+        final ThermometerShadow shadow = newTallShadow();
+        // Silhouette 90..210 x 70..1360, plus 2 * radius on each side
+        assertEquals(70f, shadow.getMaskLeft(), 0f);
+        assertEquals(50f, shadow.getMaskTop(), 0f);
+        assertEquals(160, shadow.getMaskWidth());
+        assertEquals(1330, shadow.getMaskHeight());
+        // ALPHA_8 mask against the ARGB_8888 software layer of the whole view it replaces
+        final long maskBytes = (long) shadow.getMaskWidth() * shadow.getMaskHeight();
+        final long layerBytes = 300L * 1440 * 4;
+        assertEquals(212800, maskBytes);
+        assertTrue(maskBytes * 8 < layerBytes);
+    }
+
+    @Test
+    public void draw_onlyBlitsTheMaskEveryFrame() {
+        final ThermometerShadow shadow = newTallShadow();
+        final BlitOnlyCanvas canvas = new BlitOnlyCanvas();
+        for (int frame = 0; frame < 3; frame++) {
+            shadow.draw(canvas, 0x40000000);
+        }
+        assertEquals(3, canvas.blits);
+        assertEquals(70f, canvas.lastX, 0f);
+        assertEquals(50f, canvas.lastY, 0f);
+    }
+
+    @Test
+    public void draw_skipsEmptyShape() {
+        final ThermometerShadow shadow = new ThermometerShadow(RADIUS);
+        final BlitOnlyCanvas canvas = new BlitOnlyCanvas();
+        shadow.draw(canvas, 0x40000000);
+        shadow.setShape(0f, 0f, 0f, 0f, 0f, new RectF());
+        shadow.draw(canvas, 0x40000000);
+        assertEquals(0, canvas.blits);
+    }
+}
@@ -0,0 +1,145 @@
+package com.myairmed.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Buffer growth and flush order of {@link TickBatcher}
+ */
+public class TickBatcherTest {
+
+    /**
+     * One drawLines call, with the paint state it was drawn with
+     */
+    private static final class DrawCall {
+        final float[] buffer;
+        final float[] points;
+        final float strokeWidth;
+        final int color;
+
+        DrawCall(float[] buffer, int offset, int count, RecordingPaint paint) {
+            this.buffer = buffer;
+            this.points = Arrays.copyOfRange(buffer, offset, offset + count);
+            this.strokeWidth = paint.strokeWidth;
+            this.color = paint.color;
+        }
+    }
+
+    private static final class RecordingPaint extends Paint {
+        float strokeWidth;
+        int color;
+
+        @Override
+        public void setStrokeWidth(float width) {
+            strokeWidth = width;
+        }
+
+        @Override
+        public void setColor(int color) {
+            this.color = color;
+        }
+    }
+
+    private static final class RecordingCanvas extends Canvas {
+        final List<DrawCall> calls = new ArrayList<>();
+
+        @Override
+        public void drawLines(float[] pts, int offset, int count, Paint paint) {
+            calls.add(new DrawCall(pts, offset, count, (RecordingPaint) paint));
+        }
+    }
+
+    @Test
+    public void flush_drawsOneCallPerStyleInIndexOrder() {
+        final TickBatcher batcher = new TickBatcher(3);
+        batcher.setStyle(0, 1f, 0xFF000000);
+        batcher.setStyle(1, 2f, 0xFF00FF00);
+        batcher.setStyle(2, 3f, 0xFFFF0000);
+        batcher.addLine(2, 0, 0, 0, 30);
+        batcher.addLine(0, 1, 0, 1, 10);
+        batcher.addLine(2, 2, 0, 2, 30);
+        batcher.addLine(0, 3, 0, 3, 10);
+
+        final RecordingCanvas canvas = new RecordingCanvas();
+        batcher.flush(canvas, new RecordingPaint());
+        // Style 1 has no line and is skipped
+        assertEquals(2, canvas.calls.size());
+        final DrawCall first = canvas.calls.get(0);
+        assertEquals(1f, first.strokeWidth, 0f);
+        assertEquals(0xFF000000, first.color);
+        assertArrayEquals(new float[]{1, 0, 1, 10, 3, 0, 3, 10}, first.points, 0f);
+        final DrawCall second = canvas.calls.get(1);
+        assertEquals(3f, second.strokeWidth, 0f);
+        assertEquals(0xFFFF0000, second.color);
+        assertArrayEquals(new float[]{0, 0, 0, 30, 2, 0, 2, 30}, second.points, 0f);
+    }
+
+    @Test
+    public void addLine_growsBeyondInitialBuffer() {
+        final TickBatcher batcher = new TickBatcher(1);
+        final int lines = 1000;
+        for (int i = 0; i < lines; i++) {
+            batcher.addLine(0, i, 0, i, i);
+        }
+        final RecordingCanvas canvas = new RecordingCanvas();
+        batcher.flush(canvas, new RecordingPaint());
+        assertEquals(1, canvas.calls.size());
+        final float[] points = canvas.calls.get(0).points;
+        assertEquals(lines * 4, points.length);
+        for (int i = 0; i < lines; i++) {
+            assertEquals(i, points[i * 4], 0f);
+            assertEquals(i, points[i * 4 + 3], 0f);
+        }
+    }
+
+    @Test
+    public void flush_clearsLinesAndKeepsBuffer() {
+        final TickBatcher batcher = new TickBatcher(1);
+        final RecordingCanvas canvas = new RecordingCanvas();
+        for (int frame = 0; frame < 2; frame++) {
+            for (int i = 0; i < 500; i++) {
+                batcher.addLine(0, i, 0, i, 10);
+            }
+            batcher.flush(canvas, new RecordingPaint());
+        }
+        batcher.flush(canvas, new RecordingPaint());
+        // The empty third flush draws nothing, and the second frame reuses the grown buffer
+        assertEquals(2, canvas.calls.size());
+        assertEquals(2000, canvas.calls.get(1).points.length);
+        assertSame(canvas.calls.get(0).buffer, canvas.calls.get(1).buffer);
+    }
+
+    @Test
+    public void findOrAddStyle_groupsLinesByColorBeyondInitialStyles() {
+        final TickBatcher batcher = new TickBatcher(1);
+        final int[] colors = {0xFFFF0000, 0xFF00FF00, 0xFFFF0000, 0xFF0000FF, 0xFF00FF00};
+        int styleCount = 0;
+        for (int i = 0; i < colors.length; i++) {
+            final int style = batcher.findOrAddStyle(styleCount, 2f, colors[i]);
+            if (style == styleCount) {
+                styleCount++;
+            }
+            batcher.addLine(style, i, 0, i, 10);
+        }
+        assertEquals(3, styleCount);
+
+        final RecordingCanvas canvas = new RecordingCanvas();
+        batcher.flush(canvas, new RecordingPaint());
+        // One call per color, in the order the colors first appeared
+        assertEquals(3, canvas.calls.size());
+        assertEquals(0xFFFF0000, canvas.calls.get(0).color);
+        assertArrayEquals(new float[]{0, 0, 0, 10, 2, 0, 2, 10}, canvas.calls.get(0).points, 0f);
+        assertEquals(0xFF00FF00, canvas.calls.get(1).color);
+        assertArrayEquals(new float[]{1, 0, 1, 10, 4, 0, 4, 10}, canvas.calls.get(1).points, 0f);
+        assertEquals(0xFF0000FF, canvas.calls.get(2).color);
+        assertEquals(2f, canvas.calls.get(2).strokeWidth, 0f);
+    }
+}
@@ -0,0 +1,93 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writing and mapping the binary timeline format of {@link TimePartFiles}
+ */
+public class TimePartFilesTest {
+
+    @Test
+    public void write_thenMap_roundTrips() throws IOException {
+        final File file = File.createTempFile("timeline", ".bin");
+        try {
+            final TimePartStore store = new TimePartStore();
+            // More blocks than one write buffer, and negative times
+            for (int i = 0; i < 20000; i++) {
+                store.addTimePart(i * 10 - 100, i * 10 - 95);
+            }
+            TimePartFiles.write(file, store);
+            assertEquals(20000L * TimePartFiles.BYTES_PER_PART, file.length());
+
+            final TimePartSource source = TimePartFiles.map(file);
+            assertEquals(20000, source.size());
+            for (int i = 0; i < 20000; i++) {
+                assertEquals(i * 10 - 100, source.getStartTime(i));
+                assertEquals(i * 10 - 95, source.getEndTime(i));
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void write_replacesPreviousContent() throws IOException {
+        final File file = File.createTempFile("timeline", ".bin");
+        try {
+            final TimePartStore store = new TimePartStore();
+            store.addTimePart(0, 10);
+            store.addTimePart(20, 30);
+            TimePartFiles.write(file, store);
+            store.clear();
+            store.addTimePart(5, 6);
+            TimePartFiles.write(file, store);
+
+            final TimePartSource source = TimePartFiles.map(file);
+            assertEquals(1, source.size());
+            assertEquals(5, source.getStartTime(0));
+            assertEquals(6, source.getEndTime(0));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void map_readsLittleEndianInts() throws IOException {
+        final File file = File.createTempFile("timeline", ".bin");
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(new byte[]{1, 0, 0, 0, 0, 1, 0, 0});
+            } finally {
+                out.close();
+            }
+            final TimePartSource source = TimePartFiles.map(file);
+            assertEquals(1, source.getStartTime(0));
+            assertEquals(256, source.getEndTime(0));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void map_rejectsTruncatedFile() throws IOException {
+        final File file = File.createTempFile("timeline", ".bin");
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(new byte[12]);
+            } finally {
+                out.close();
+            }
+            TimePartFiles.map(file);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sorting, merging and the viewport search of {@link TimePartIndex}
+ */
+public class TimePartIndexTest {
+
+    private static TimePartStore store(int... times) {
+        final TimePartStore store = new TimePartStore();
+        for (int i = 0; i < times.length; i += 2) {
+            store.addTimePart(times[i], times[i + 1]);
+        }
+        return store;
+    }
+
+    private static void assertBlocks(TimePartIndex index, int... times) {
+        assertEquals(times.length / 2, index.size());
+        for (int i = 0; i < times.length; i += 2) {
+            assertEquals(times[i], index.getStartTime(i / 2));
+            assertEquals(times[i + 1], index.getEndTime(i / 2));
+        }
+    }
+
+    @Test
+    public void build_sortsAndMergesOverlappingAndTouchingBlocks() {
+        final TimePartIndex index = TimePartIndex.build(store(50, 60, 0, 10, 5, 20, 20, 30, 40, 45));
+        assertBlocks(index, 0, 30, 40, 45, 50, 60);
+    }
+
+    @Test
+    public void build_mergesSortedInputWithoutSorting() {
+        final TimePartIndex index = TimePartIndex.build(store(0, 10, 2, 4, 8, 15, 16, 20));
+        assertBlocks(index, 0, 15, 16, 20);
+    }
+
+    @Test
+    public void build_dropsInvalidBlocks() {
+        final TimePartIndex index = TimePartIndex.build(store(10, 5, 20, 30));
+        assertBlocks(index, 20, 30);
+    }
+
+    @Test
+    public void wrap_keepsNormalizedSource() {
+        final TimePartStore source = store(0, 10, 20, 30);
+        final TimePartIndex index = TimePartIndex.wrap(source);
+        assertBlocks(index, 0, 10, 20, 30);
+    }
+
+    @Test
+    public void wrap_normalizesOverlappingSource() {
+        final TimePartIndex index = TimePartIndex.wrap(store(0, 10, 5, 30));
+        assertBlocks(index, 0, 30);
+    }
+
+    @Test
+    public void findFirstEndingAfter() {
+        final TimePartIndex index = TimePartIndex.build(store(0, 10, 20, 30, 40, 50));
+        assertEquals(0, index.findFirstEndingAfter(-5));
+        assertEquals(0, index.findFirstEndingAfter(10));
+        assertEquals(1, index.findFirstEndingAfter(11));
+        assertEquals(1, index.findFirstEndingAfter(25));
+        assertEquals(2, index.findFirstEndingAfter(50));
+        assertEquals(3, index.findFirstEndingAfter(51));
+    }
+
+    @Test
+    public void findFirstEndingAfter_empty() {
+        final TimePartIndex index = TimePartIndex.build(new TimePartStore());
+        assertEquals(0, index.size());
+        assertEquals(0, index.findFirstEndingAfter(100));
+    }
+}
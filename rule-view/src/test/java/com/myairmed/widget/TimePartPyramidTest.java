@@ -0,0 +1,78 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Level merging and sharing of {@link TimePartPyramid}
+ */
+public class TimePartPyramidTest {
+
+    private static TimePartIndex index(int... times) {
+        final TimePartStore store = new TimePartStore();
+        for (int i = 0; i < times.length; i += 2) {
+            store.addTimePart(times[i], times[i + 1]);
+        }
+        return TimePartIndex.build(store);
+    }
+
+    private static void assertBlocks(TimePartIndex index, int... times) {
+        assertEquals(times.length / 2, index.size());
+        for (int i = 0; i < times.length; i += 2) {
+            assertEquals(times[i], index.getStartTime(i / 2));
+            assertEquals(times[i + 1], index.getEndTime(i / 2));
+        }
+    }
+
+    @Test
+    public void build_mergesGapsShorterThanLevelGap() {
+        // Gaps: 5, 20, 100
+        final TimePartIndex base = index(0, 10, 15, 20, 40, 50, 150, 160);
+        final TimePartPyramid pyramid = TimePartPyramid.build(base, new float[]{1, 10, 50, 1000});
+        assertSame(base, pyramid.getLevel(0));
+        assertBlocks(pyramid.getLevel(1), 0, 20, 40, 50, 150, 160);
+        assertBlocks(pyramid.getLevel(2), 0, 50, 150, 160);
+        assertBlocks(pyramid.getLevel(3), 0, 160);
+    }
+
+    @Test
+    public void build_sharesLevelWhenNothingMerges() {
+        final TimePartIndex base = index(0, 10, 100, 110, 200, 210);
+        final TimePartPyramid pyramid = TimePartPyramid.build(base, new float[]{20, 50});
+        assertSame(base, pyramid.getLevel(0));
+        assertSame(base, pyramid.getLevel(1));
+    }
+
+    @Test
+    public void build_restartsFromBaseWhenGapShrinks() {
+        final TimePartIndex base = index(0, 10, 15, 20, 40, 50);
+        final TimePartPyramid pyramid = TimePartPyramid.build(base, new float[]{100, 10});
+        assertBlocks(pyramid.getLevel(0), 0, 50);
+        assertBlocks(pyramid.getLevel(1), 0, 20, 40, 50);
+    }
+
+    @Test
+    public void build_largeInputMatchesSequentialMerge() {
+        // Above the fork/join threshold, with seams landing inside merged runs
+        final int count = 100000;
+        final TimePartStore store = new TimePartStore(count);
+        int time = 0;
+        for (int i = 0; i < count; i++) {
+            store.addTimePart(time, time + 5);
+            time += 5 + (i % 7 == 6 ? 30 : 2);
+        }
+        final TimePartIndex base = TimePartIndex.build(store);
+        assertTrue(TimePartPyramid.isLarge(base.size()));
+        final TimePartIndex level = TimePartPyramid.build(base, new float[]{10}).getLevel(0);
+
+        // Runs of 7 blocks 2 s apart, then a 30 s gap
+        assertEquals((count + 6) / 7, level.size());
+        for (int i = 0; i < level.size(); i++) {
+            final int first = i * 7;
+            final int last = Math.min(count, first + 7) - 1;
+            assertEquals(base.getStartTime(first), level.getStartTime(i));
+            assertEquals(base.getEndTime(last), level.getEndTime(i));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Memory and iteration time of a million blocks, as a {@link TimePartStore} and as a List of {@link TimeRuleView.TimePart}
+ *
+ * Measured on the JVM running the tests, so the numbers only compare the two layouts; ART lays objects out alike
+ * (a header per TimePart and a reference per list entry)
+ */
+public class TimePartStoreComparisonTest {
+
+    private static final int COUNT = 1000000;
+    private static final int RUNS = 5;
+
+    @Test
+    public void memoryPerMillion_storeIsSeveralTimesSmaller() {
+        final long before = usedBytes();
+        final TimePartStore store = new TimePartStore(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            store.addTimePart(i * 2, i * 2 + 1);
+        }
+        final long storeBytes = usedBytes() - before;
+
+        final List<TimeRuleView.TimePart> list = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            final TimeRuleView.TimePart part = new TimeRuleView.TimePart();
+            part.startTime = i * 2;
+            part.endTime = i * 2 + 1;
+            list.add(part);
+        }
+        final long listBytes = usedBytes() - before - storeBytes;
+
+        // 8 bytes per block against a 16+ byte object and a 4+ byte reference
+        assertTrue(String.format("store %d bytes, list %d bytes", storeBytes, listBytes), storeBytes * 2 < listBytes);
+        assertEquals(COUNT, store.size());
+        assertEquals(COUNT, list.size());
+    }
+
+    @Test
+    public void iteration_storeIsNotSlowerThanList() {
+        final TimePartStore store = new TimePartStore(COUNT);
+        final List<TimeRuleView.TimePart> list = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            store.addTimePart(i * 2, i * 2 + 1);
+            final TimeRuleView.TimePart part = new TimeRuleView.TimePart();
+            part.startTime = i * 2;
+            part.endTime = i * 2 + 1;
+            list.add(part);
+        }
+
+        // Best of several runs, the first ones also warm the JIT up
+        long storeNanos = Long.MAX_VALUE;
+        long listNanos = Long.MAX_VALUE;
+        long expected = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            final long storeSum = sumStore(store);
+            storeNanos = Math.min(storeNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final long listSum = sumList(list);
+            listNanos = Math.min(listNanos, System.nanoTime() - start);
+
+            assertEquals(storeSum, listSum);
+            expected = storeSum;
+        }
+        // 1 + i for every block
+        assertEquals((long) COUNT * (COUNT + 1) / 2, expected);
+        // Generous margin: the store reads two sequential arrays, the list dereferences an object per block
+        assertTrue(String.format("store %d ns, list %d ns", storeNanos, listNanos), storeNanos <= listNanos * 2);
+    }
+
+    private static long sumStore(TimePartStore store) {
+        long sum = 0;
+        for (int i = 0, size = store.size(); i < size; i++) {
+            sum += store.getEndTime(i) - store.getStartTime(i) + store.getStartTime(i) / 2;
+        }
+        return sum;
+    }
+
+    private static long sumList(List<TimeRuleView.TimePart> list) {
+        long sum = 0;
+        for (int i = 0, size = list.size(); i < size; i++) {
+            final TimeRuleView.TimePart part = list.get(i);
+            sum += part.endTime - part.startTime + part.startTime / 2;
+        }
+        return sum;
+    }
+
+    private static long usedBytes() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
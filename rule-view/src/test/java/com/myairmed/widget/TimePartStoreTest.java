@@ -0,0 +1,74 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Growth and bulk replacement of {@link TimePartStore}
+ */
+public class TimePartStoreTest {
+
+    @Test
+    public void addTimePart_growsBeyondInitialCapacity() {
+        final TimePartStore store = new TimePartStore(0);
+        for (int i = 0; i < 100; i++) {
+            store.addTimePart(i * 10, i * 10 + 5);
+        }
+        assertEquals(100, store.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 10, store.getStartTime(i));
+            assertEquals(i * 10 + 5, store.getEndTime(i));
+        }
+    }
+
+    @Test
+    public void addTimeParts_appendsAfterExistingBlocks() {
+        final TimePartStore store = new TimePartStore(2);
+        store.addTimePart(0, 1);
+        store.addTimeParts(new int[]{10, 20, 30}, new int[]{11, 21, 31}, 2);
+        assertEquals(3, store.size());
+        assertEquals(0, store.getStartTime(0));
+        assertEquals(10, store.getStartTime(1));
+        assertEquals(21, store.getEndTime(2));
+    }
+
+    @Test
+    public void setTimeParts_replacesAndCopies() {
+        final TimePartStore store = new TimePartStore(1);
+        store.addTimePart(100, 200);
+        final int[] startTimes = {1, 2, 3};
+        final int[] endTimes = {4, 5, 6};
+        store.setTimeParts(startTimes, endTimes, 3);
+        startTimes[0] = 99;
+        assertEquals(3, store.size());
+        assertEquals(1, store.getStartTime(0));
+        assertEquals(6, store.getEndTime(2));
+
+        store.setTimeParts(startTimes, endTimes, 1);
+        assertEquals(1, store.size());
+        assertEquals(99, store.getStartTime(0));
+    }
+
+    @Test
+    public void clear_keepsStoreUsable() {
+        final TimePartStore store = new TimePartStore();
+        store.addTimePart(1, 2);
+        store.clear();
+        assertEquals(0, store.size());
+        store.addTimePart(3, 4);
+        assertEquals(3, store.getStartTime(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getStartTime_outOfSize() {
+        final TimePartStore store = new TimePartStore(8);
+        store.addTimePart(1, 2);
+        store.getStartTime(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setTimeParts_countLongerThanArrays() {
+        new TimePartStore().setTimeParts(new int[2], new int[1], 2);
+    }
+}
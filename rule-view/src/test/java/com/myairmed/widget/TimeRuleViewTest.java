@@ -0,0 +1,62 @@
+package com.myairmed.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Range of units visited by {@link TimeRuleView} to draw a frame
+ */
+public class TimeRuleViewTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HALF_WIDTH = WIDTH / 2;
+    private static final float TEXT_HALF_WIDTH = 40f;
+
+    @Test
+    public void visibleUnits_coverTheViewportOnly() {
+        final int unitSecond = 60;
+        final float unitGap = 36f;
+        final float currentDistance = 12 * 3600 / unitSecond * unitGap + 10f;
+        final int first = TimeRuleView.findFirstVisibleUnit(currentDistance, HALF_WIDTH, TEXT_HALF_WIDTH, unitGap);
+        final int last = TimeRuleView.findLastVisibleUnit(currentDistance, WIDTH, HALF_WIDTH, TEXT_HALF_WIDTH,
+                unitGap, unitSecond);
+        // Every unit whose label can reach the view is visited, and the ones around are not needed
+        assertTrue(xOf(first, currentDistance, unitGap) <= -TEXT_HALF_WIDTH);
+        assertTrue(xOf(first + 1, currentDistance, unitGap) > -TEXT_HALF_WIDTH);
+        assertTrue(xOf(last, currentDistance, unitGap) >= WIDTH + TEXT_HALF_WIDTH);
+        assertTrue(xOf(last - 1, currentDistance, unitGap) < WIDTH + TEXT_HALF_WIDTH);
+    }
+
+    @Test
+    public void visibleUnits_clampToTheDay() {
+        final int unitSecond = 10;
+        final float unitGap = 20f;
+        assertEquals(0, TimeRuleView.findFirstVisibleUnit(0f, HALF_WIDTH, TEXT_HALF_WIDTH, unitGap));
+        final float endDistance = TimeRuleView.MAX_TIME_VALUE / unitSecond * unitGap;
+        assertEquals(TimeRuleView.MAX_TIME_VALUE / unitSecond, TimeRuleView.findLastVisibleUnit(endDistance, WIDTH,
+                HALF_WIDTH, TEXT_HALF_WIDTH, unitGap, unitSecond));
+    }
+
+    @Test
+    public void visibleUnits_followTheWidthAtEveryZoomLevel() {
+        // From 10 s units zoomed in down to 15 min units zoomed out
+        final int[] unitSeconds = {10, 10, 60, 300, 900, 900};
+        final float[] unitGaps = {60f, 12f, 18f, 15f, 27f, 8f};
+        for (int i = 0; i < unitSeconds.length; i++) {
+            final int dayUnits = TimeRuleView.MAX_TIME_VALUE / unitSeconds[i];
+            final float currentDistance = dayUnits / 2 * unitGaps[i];
+            final int first = TimeRuleView.findFirstVisibleUnit(currentDistance, HALF_WIDTH, TEXT_HALF_WIDTH,
+                    unitGaps[i]);
+            final int last = TimeRuleView.findLastVisibleUnit(currentDistance, WIDTH, HALF_WIDTH, TEXT_HALF_WIDTH,
+                    unitGaps[i], unitSeconds[i]);
+            // The whole day was visited before, up to 8641 units per frame
+            final int visited = last - first + 1;
+            assertTrue(visited <= (WIDTH + 2 * TEXT_HALF_WIDTH) / unitGaps[i] + 3);
+        }
+    }
+
+    private static float xOf(int unit, float currentDistance, float unitGap) {
+        return HALF_WIDTH - currentDistance + unit * unitGap;
+    }
+}